@@ -0,0 +1,157 @@
+package com.walklight.safety
+
+import android.content.ComponentName
+import android.content.Context
+import android.content.Intent
+import android.graphics.Bitmap
+import android.os.Handler
+import android.os.Looper
+import android.util.Log
+import android.util.LruCache
+import android.view.LayoutInflater
+import android.view.View
+import android.view.ViewGroup
+import android.widget.ImageView
+import android.widget.TextView
+import androidx.recyclerview.widget.RecyclerView
+import java.util.Collections
+import java.util.concurrent.Executors
+
+/**
+ * Launchable activities for the in-app companion picker. Entries come from [LaunchableAppIndex]
+ * when it's loaded; otherwise labels are resolved on a background thread. Either way they are
+ * inserted in sorted order a page at a time, so the first screen renders before the whole list
+ * is loaded. Icons are rendered at companion_icon_size on a small
+ * pool into [iconCache] only when a row is bound.
+ */
+class AppPickerAdapter(
+    context: Context,
+    private val iconCache: LruCache<String, Bitmap>,
+    private val onPicked: (Entry) -> Unit
+) : RecyclerView.Adapter<AppPickerAdapter.Holder>() {
+
+    class Entry(val packageName: String, val className: String, val label: String) {
+        val key = "$packageName/$className"
+    }
+
+    class Holder(view: View) : RecyclerView.ViewHolder(view) {
+        val icon: ImageView = view.findViewById(R.id.companion_app_icon)
+        val label: TextView = view.findViewById(R.id.companion_app_label)
+    }
+
+    private val pm = context.packageManager
+    private val appIndex = LaunchableAppIndex.get(context)
+    private val ownPackage = context.packageName
+    private val iconSize = context.resources.getDimensionPixelSize(R.dimen.companion_icon_size)
+    private val mainHandler = Handler(Looper.getMainLooper())
+    private val labelLoader = Executors.newSingleThreadExecutor { Thread(it, "WalklightPickerLabels") }
+    private val iconLoader = Executors.newFixedThreadPool(ICON_THREADS) { Thread(it, "WalklightPickerIcons") }
+
+    // Main thread only
+    private val entries = ArrayList<Entry>()
+    private val pendingIcons = HashSet<String>()
+    @Volatile private var released = false
+
+    /** Start streaming launchable activities into the list. */
+    fun start() {
+        labelLoader.execute {
+            // Labels already resolved by the launchable-app index
+            val indexed = appIndex.launchableEntries()
+            if (indexed != null) {
+                Log.d("APP_PICKER", "📱 Picker: ${indexed.size} launchable activities (index)")
+                indexed.filter { it.packageName != ownPackage }.chunked(PAGE_SIZE).forEach { page ->
+                    if (released) return@execute
+                    publish(page.map { Entry(it.packageName, it.className, it.label) })
+                }
+                return@execute
+            }
+            val launcher = Intent(Intent.ACTION_MAIN).addCategory(Intent.CATEGORY_LAUNCHER)
+            val activities = pm.queryIntentActivities(launcher, 0)
+            Log.d("APP_PICKER", "📱 Picker: ${activities.size} launchable activities")
+            var page = ArrayList<Entry>(PAGE_SIZE)
+            for (info in activities) {
+                if (released) return@execute
+                val activity = info.activityInfo
+                if (activity.packageName == ownPackage) continue
+                page.add(Entry(activity.packageName, activity.name, info.loadLabel(pm).toString()))
+                if (page.size == PAGE_SIZE) {
+                    publish(page)
+                    page = ArrayList(PAGE_SIZE)
+                }
+            }
+            if (page.isNotEmpty()) publish(page)
+        }
+    }
+
+    /** Dialog gone: stop loading. The icon cache stays with AppPicker for the next open. */
+    fun release() {
+        released = true
+        labelLoader.shutdownNow()
+        iconLoader.shutdownNow()
+        mainHandler.removeCallbacksAndMessages(null)
+    }
+
+    override fun getItemCount() = entries.size
+
+    override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): Holder {
+        val view = LayoutInflater.from(parent.context).inflate(R.layout.item_companion_app, parent, false)
+        return Holder(view)
+    }
+
+    override fun onBindViewHolder(holder: Holder, position: Int) {
+        val entry = entries[position]
+        holder.label.text = entry.label
+        holder.itemView.setOnClickListener { onPicked(entry) }
+        val icon = iconCache.get(entry.key)
+        if (icon != null) {
+            holder.icon.setImageBitmap(icon)
+        } else {
+            holder.icon.setImageDrawable(null)
+            requestIcon(entry)
+        }
+    }
+
+    private fun publish(page: List<Entry>) {
+        mainHandler.post {
+            if (released) return@post
+            for (entry in page) {
+                val found = Collections.binarySearch(entries, entry, ORDER)
+                val index = if (found < 0) -found - 1 else found
+                entries.add(index, entry)
+                notifyItemInserted(index)
+            }
+        }
+    }
+
+    private fun requestIcon(entry: Entry) {
+        if (released || !pendingIcons.add(entry.key)) return
+        iconLoader.execute {
+            val bitmap = try {
+                CompanionAppCache.render(pm.getActivityIcon(ComponentName(entry.packageName, entry.className)), iconSize)
+            } catch (e: Exception) {
+                Log.w("APP_PICKER", "⚠️ Picker: no icon for ${entry.key}: ${e.message}")
+                null
+            }
+            mainHandler.post {
+                pendingIcons.remove(entry.key)
+                if (released || bitmap == null) return@post
+                iconCache.put(entry.key, bitmap)
+                val index = Collections.binarySearch(entries, entry, ORDER)
+                if (index >= 0) notifyItemChanged(index)
+            }
+        }
+    }
+
+    companion object {
+        private const val PAGE_SIZE = 24
+        private const val ICON_THREADS = 2
+
+        private val ORDER: Comparator<Entry> =
+            compareBy<Entry, String>(String.CASE_INSENSITIVE_ORDER) { it.label }.thenBy { it.key }
+
+        /** Icon cache bounded by bitmap bytes. */
+        fun newIconCache(maxBytes: Int) = object : LruCache<String, Bitmap>(maxBytes) {
+            override fun sizeOf(key: String, value: Bitmap) = value.byteCount
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.walklight.safety;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The one ordered worker thread for disk and PackageManager work: settings, UI snapshot,
+ * companion app cache and launchable-app index. Torch HAL calls stay on TorchExecutor.
+ * Tasks run in submission order, so each store's reads and writes keep their order too.
+ */
+public final class BackgroundExecutor {
+    private static final ExecutorService worker = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "WalklightBackground"));
+
+    private BackgroundExecutor() {}
+
+    public static void execute(Runnable task) {
+        worker.execute(task);
+    }
+}
@@ -0,0 +1,78 @@
+package com.walklight.safety;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Small versioned cache of {@link TorchCapabilities}, keyed by Build.FINGERPRINT so an OTA
+ * or a restored backup on another device forces a fresh discovery.
+ */
+public final class CapabilityCache {
+    private static final String TAG = "CapabilityCache";
+    private static final String PREFS = "walklight_camera_cache";
+    private static final int VERSION = 2; // 2: all flash units instead of cameraIdList[0]
+
+    private static final String KEY_VERSION = "version";
+    private static final String KEY_FINGERPRINT = "fingerprint";
+    private static final String KEY_UNAVAILABLE_REASON = "unavailable_reason";
+    private static final String KEY_UNITS = "flash_units";
+
+    private CapabilityCache() {}
+
+    /** Cached capabilities for this build, or null if missing / stale. */
+    @Nullable
+    public static TorchCapabilities read(Context context) {
+        SharedPreferences prefs = prefs(context);
+        if (prefs.getInt(KEY_VERSION, 0) != VERSION
+                || !Build.FINGERPRINT.equals(prefs.getString(KEY_FINGERPRINT, null))) {
+            return null;
+        }
+        String serialized = prefs.getString(KEY_UNITS, "");
+        List<FlashUnit> units = new ArrayList<>();
+        try {
+            for (String entry : serialized.split(";")) {
+                if (!entry.isEmpty()) {
+                    units.add(FlashUnit.parse(entry));
+                }
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Corrupt capability cache - rediscovering", e);
+            return null;
+        }
+        if (units.isEmpty()) {
+            return TorchCapabilities.unavailable(prefs.getString(KEY_UNAVAILABLE_REASON, "No camera found!"), true);
+        }
+        return TorchCapabilities.of(units); // Already ranked when written
+    }
+
+    public static void write(Context context, TorchCapabilities capabilities) {
+        if (!capabilities.cacheable) {
+            return; // Transient failure - discover again next launch
+        }
+        StringBuilder serialized = new StringBuilder();
+        for (FlashUnit unit : capabilities.units) {
+            if (serialized.length() > 0) {
+                serialized.append(';');
+            }
+            serialized.append(unit.serialize());
+        }
+        prefs(context).edit()
+                .putInt(KEY_VERSION, VERSION)
+                .putString(KEY_FINGERPRINT, Build.FINGERPRINT)
+                .putString(KEY_UNAVAILABLE_REASON, capabilities.unavailableReason)
+                .putString(KEY_UNITS, serialized.toString())
+                .apply();
+        Log.d(TAG, "Cached " + capabilities);
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,232 @@
+package com.walklight.safety;
+
+import android.content.BroadcastReceiver;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import androidx.core.content.pm.PackageInfoCompat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Disk-backed label / launcher component / icon cache for companion apps, keyed by package name
+ * and versionCode. Icons are stored pre-scaled (companion_icon_size), so showing the companion in
+ * Settings decodes a small PNG instead of rendering a full-size adaptive icon, and never walks
+ * the installed-apps list. Entries are dropped by package-change broadcasts while the process runs
+ * and re-checked against the installed versionCode on load (broadcasts missed while not running).
+ */
+public final class CompanionAppCache {
+    private static final String TAG = "CompanionAppCache";
+    private static final String PREFS = "walklight_companion_cache";
+    private static final String ICON_DIR = "companion_icons";
+    private static final char SEPARATOR = '\n';
+
+    /** Resolved companion app. {@code icon} is null if the lookup failed (never cached). */
+    public static final class Info {
+        public final String packageName;
+        @Nullable public final String className;
+        public final String label;
+        @Nullable public final Bitmap icon;
+        final long versionCode;
+
+        Info(String packageName, @Nullable String className, String label, @Nullable Bitmap icon, long versionCode) {
+            this.packageName = packageName;
+            this.className = className;
+            this.label = label;
+            this.icon = icon;
+            this.versionCode = versionCode;
+        }
+    }
+
+    public interface Callback {
+        /** Main thread. {@code info} is null if the package isn't installed. */
+        void onLoaded(@Nullable Info info);
+    }
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Last loaded entry - reopening Settings doesn't even touch disk
+    private static volatile Info memoryEntry;
+
+    private static final BroadcastReceiver packageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            Uri data = intent.getData();
+            if (data != null) {
+                invalidate(context, data.getSchemeSpecificPart());
+            }
+        }
+    };
+
+    private CompanionAppCache() {}
+
+    /** Application.onCreate: drop entries when a package is updated, changed or removed. */
+    static void registerPackageReceiver(Context context) {
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addDataScheme("package");
+        ContextCompat.registerReceiver(context.getApplicationContext(), packageReceiver, filter,
+                ContextCompat.RECEIVER_NOT_EXPORTED);
+    }
+
+    /**
+     * Resolve {@code packageName} (and optionally its launcher {@code className}) off the main thread.
+     */
+    public static void load(Context context, String packageName, @Nullable String className, Callback callback) {
+        Context appContext = context.getApplicationContext();
+        BackgroundExecutor.execute(() -> {
+            Info info = loadBlocking(appContext, packageName, className);
+            mainHandler.post(() -> callback.onLoaded(info));
+        });
+    }
+
+    static void invalidate(Context context, String packageName) {
+        Context appContext = context.getApplicationContext();
+        BackgroundExecutor.execute(() -> {
+            Info cached = memoryEntry;
+            if (cached != null && cached.packageName.equals(packageName)) {
+                memoryEntry = null;
+            }
+            if (prefs(appContext).contains(packageName)) {
+                Log.d(TAG, "Invalidated " + packageName);
+                prefs(appContext).edit().remove(packageName).apply();
+                //noinspection ResultOfMethodCallIgnored
+                iconFile(appContext, packageName).delete();
+            }
+        });
+    }
+
+    // BackgroundExecutor thread
+    @Nullable
+    private static Info loadBlocking(Context context, String packageName, @Nullable String className) {
+        PackageManager pm = context.getPackageManager();
+        long versionCode;
+        try {
+            PackageInfo packageInfo = pm.getPackageInfo(packageName, 0);
+            versionCode = PackageInfoCompat.getLongVersionCode(packageInfo);
+        } catch (PackageManager.NameNotFoundException e) {
+            return null; // Not installed (or not visible to us)
+        }
+
+        Info cached = memoryEntry;
+        if (matches(cached, packageName, className, versionCode)) {
+            return cached;
+        }
+        cached = readDisk(context, packageName, versionCode);
+        if (matches(cached, packageName, className, versionCode)) {
+            memoryEntry = cached;
+            return cached;
+        }
+
+        Info resolved = resolve(context, pm, packageName, className, versionCode);
+        if (resolved.icon != null) {
+            write(context, resolved);
+            memoryEntry = resolved;
+        }
+        // else: lookup failed (label is the package name) - not cached, the next load retries
+        return resolved;
+    }
+
+    private static boolean matches(@Nullable Info info, String packageName, @Nullable String className, long versionCode) {
+        return info != null && info.packageName.equals(packageName) && info.versionCode == versionCode
+                && (className == null || className.equals(info.className));
+    }
+
+    private static Info resolve(Context context, PackageManager pm, String packageName,
+                                @Nullable String className, long versionCode) {
+        String label = packageName;
+        Drawable icon = null;
+        try {
+            if (className != null) {
+                // Launcher activity: its own label/icon, like the launcher shows
+                ActivityInfo activityInfo = pm.getActivityInfo(new ComponentName(packageName, className), 0);
+                label = activityInfo.loadLabel(pm).toString();
+                icon = activityInfo.loadIcon(pm);
+            } else {
+                ApplicationInfo appInfo = pm.getApplicationInfo(packageName, 0);
+                label = pm.getApplicationLabel(appInfo).toString();
+                icon = pm.getApplicationIcon(appInfo);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Could not resolve " + packageName + "/" + className + ": " + e.getMessage());
+        }
+        int size = context.getResources().getDimensionPixelSize(R.dimen.companion_icon_size);
+        return new Info(packageName, className, label, icon != null ? render(icon, size) : null, versionCode);
+    }
+
+    /** Draw once at display size; adaptive icons are never decoded at full size again. */
+    static Bitmap render(Drawable drawable, int size) {
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        drawable.setBounds(0, 0, size, size);
+        drawable.draw(canvas);
+        return bitmap;
+    }
+
+    @Nullable
+    private static Info readDisk(Context context, String packageName, long versionCode) {
+        String entry = prefs(context).getString(packageName, null);
+        if (entry == null) return null;
+        // versionCode \n className \n label
+        int first = entry.indexOf(SEPARATOR);
+        int second = first < 0 ? -1 : entry.indexOf(SEPARATOR, first + 1);
+        if (second < 0) return null;
+        long storedVersion;
+        try {
+            storedVersion = Long.parseLong(entry.substring(0, first));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (storedVersion != versionCode) return null;
+        String className = entry.substring(first + 1, second);
+        String label = entry.substring(second + 1);
+        // The PNG lives in the cache dir, which the system clears under storage pressure
+        Bitmap icon = BitmapFactory.decodeFile(iconFile(context, packageName).getPath());
+        if (icon == null) return null; // Missing or unreadable - re-resolve
+        return new Info(packageName, className.isEmpty() ? null : className, label, icon, versionCode);
+    }
+
+    // Resolved entries only - PackageManager always gives a (default) icon on success
+    private static void write(Context context, Info info) {
+        File file = iconFile(context, info.packageName);
+        //noinspection ResultOfMethodCallIgnored
+        file.getParentFile().mkdirs();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            info.icon.compress(Bitmap.CompressFormat.PNG, 100, out);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write icon for " + info.packageName + ": " + e.getMessage());
+            return; // readDisk() would miss on the icon anyway
+        }
+        String entry = info.versionCode + String.valueOf(SEPARATOR)
+                + (info.className != null ? info.className : "") + SEPARATOR + info.label;
+        prefs(context).edit().putString(info.packageName, entry).apply();
+    }
+
+    private static File iconFile(Context context, String packageName) {
+        return new File(new File(context.getCacheDir(), ICON_DIR), packageName + ".png");
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+}
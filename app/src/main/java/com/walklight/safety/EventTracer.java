@@ -0,0 +1,140 @@
+package com.walklight.safety;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Preallocated ring buffer of (timestamp, event, int args) records for the torch and lifecycle
+ * hot paths. Recording never allocates or formats; the buffer is only turned into text when
+ * dumped via {@code adb shell dumpsys activity com.walklight.safety}.
+ * Release builds skip recording entirely (ENABLED is a compile-time constant).
+ */
+public final class EventTracer {
+    public static final boolean ENABLED = BuildConfig.DEBUG;
+    private static final int CAPACITY = 512;
+
+    // ================================
+    // EVENTS (index into NAMES)
+    // ================================
+    public static final int TORCH_SET_ON = 0;
+    public static final int TORCH_SET_OFF = 1;
+    /** arg0 = strength level */
+    public static final int TORCH_SET_STRENGTH = 2;
+    /** arg0 = on, arg1 = strength level */
+    public static final int TORCH_REPORTED = 3;
+    /** arg0 = checked */
+    public static final int TOGGLE_CHANGED = 4;
+    /** arg0 = strength level (-1 = plain ON) */
+    public static final int REQUEST_ON = 5;
+    public static final int REQUEST_OFF = 6;
+    /** arg0 = LightPolicy.StopAction ordinal, arg1 = TorchState ordinal */
+    public static final int STOP_DECISION = 7;
+    /** arg0 = TorchState ordinal, arg1 = restore requested */
+    public static final int RESUME_DECISION = 8;
+    /** arg0 = recreated */
+    public static final int ON_CREATE = 9;
+    public static final int ON_START = 10;
+    public static final int ON_RESUME = 11;
+    public static final int ON_PAUSE = 12;
+    public static final int ON_STOP = 13;
+    /** arg0 = changing configurations */
+    public static final int ON_DESTROY = 14;
+    /** arg0 = in multi-window */
+    public static final int MULTI_WINDOW_CHANGED = 15;
+    /** arg0 = screenWidthDp, arg1 = screenHeightDp (handled in place, no recreation) */
+    public static final int CONFIG_CHANGED = 16;
+    /** arg0 = UiSnapshot.MODE_*, arg1 = screen level in percent */
+    public static final int MODE_SHOWN = 17;
+    /** arg0 = checked */
+    public static final int SYNC_CHANGED = 18;
+    /** Fresh launch, session torch state taken from the hardware. arg0 = TorchState ordinal, arg1 = strength level */
+    public static final int TORCH_RECONCILED = 19;
+    /** Recreated activity bound to the live session. arg0 = TorchState ordinal, arg1 = sync enabled */
+    public static final int SESSION_REBOUND = 20;
+    /** arg0 = has flash, arg1 = max strength level (-1 = on/off only) */
+    public static final int CAPABILITIES_APPLIED = 21;
+    /** Fresh launch, persisted UI state applied. arg0 = UiSnapshot.MODE_*, arg1 = screen level in percent */
+    public static final int SNAPSHOT_APPLIED = 22;
+
+    private static final String[] NAMES = {
+            "TORCH_SET_ON", "TORCH_SET_OFF", "TORCH_SET_STRENGTH", "TORCH_REPORTED",
+            "TOGGLE_CHANGED", "REQUEST_ON", "REQUEST_OFF", "STOP_DECISION", "RESUME_DECISION",
+            "ON_CREATE", "ON_START", "ON_RESUME", "ON_PAUSE", "ON_STOP", "ON_DESTROY",
+            "MULTI_WINDOW_CHANGED", "CONFIG_CHANGED", "MODE_SHOWN", "SYNC_CHANGED",
+            "TORCH_RECONCILED", "SESSION_REBOUND", "CAPABILITIES_APPLIED", "SNAPSHOT_APPLIED",
+    };
+
+    private static final EventTracer INSTANCE = new EventTracer(ENABLED ? CAPACITY : 0);
+
+    private final long[] timesNs;
+    private final int[] events;
+    private final int[] args0;
+    private final int[] args1;
+    private long count;
+
+    EventTracer(int capacity) {
+        timesNs = new long[capacity];
+        events = new int[capacity];
+        args0 = new int[capacity];
+        args1 = new int[capacity];
+    }
+
+    public static void trace(int event) {
+        if (ENABLED) INSTANCE.record(event, 0, 0, System.nanoTime());
+    }
+
+    public static void trace(int event, int arg0) {
+        if (ENABLED) INSTANCE.record(event, arg0, 0, System.nanoTime());
+    }
+
+    public static void trace(int event, int arg0, int arg1) {
+        if (ENABLED) INSTANCE.record(event, arg0, arg1, System.nanoTime());
+    }
+
+    public static int flag(boolean value) {
+        return value ? 1 : 0;
+    }
+
+    /** 0..1 slider / screen level as a whole percent */
+    public static int percent(float fraction) {
+        return Math.round(fraction * 100);
+    }
+
+    /** Write the buffered events, oldest first. */
+    public static void dump(String prefix, PrintWriter writer) {
+        if (!ENABLED) {
+            writer.println(prefix + "EventTracer: disabled in release builds");
+            return;
+        }
+        INSTANCE.dumpTo(prefix, writer);
+    }
+
+    synchronized void record(int event, int arg0, int arg1, long timeNs) {
+        if (timesNs.length == 0) return;
+        int slot = (int) (count % timesNs.length);
+        timesNs[slot] = timeNs;
+        events[slot] = event;
+        args0[slot] = arg0;
+        args1[slot] = arg1;
+        count++;
+    }
+
+    synchronized void dumpTo(String prefix, PrintWriter writer) {
+        int capacity = timesNs.length;
+        int size = (int) Math.min(count, capacity);
+        writer.println(prefix + "EventTracer: " + size + " of " + count + " events");
+        if (size == 0) return;
+        long first = count - size;
+        long originNs = timesNs[(int) (first % capacity)];
+        for (long i = first; i < count; i++) {
+            int slot = (int) (i % capacity);
+            writer.println(String.format(Locale.US, "%s  +%9.3fms %-20s %d %d",
+                    prefix, (timesNs[slot] - originNs) / 1_000_000.0,
+                    nameOf(events[slot]), args0[slot], args1[slot]));
+        }
+    }
+
+    static String nameOf(int event) {
+        return event >= 0 && event < NAMES.length ? NAMES[event] : "EVENT_" + event;
+    }
+}
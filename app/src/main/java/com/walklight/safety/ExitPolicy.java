@@ -1,7 +1,5 @@
 package com.walklight.safety;
 
-import android.content.Context;
-import android.content.SharedPreferences;
 import android.util.Log;
 
 /**
@@ -10,23 +8,29 @@ import android.util.Log;
  */
 public class ExitPolicy {
 
-    private static final String PREFS = "walklight_settings";
-    private static final String KEY_KEEP_ON = "keep_light_on_close";
-
-    private boolean readKeepOn(MainActivity activity) {
-        SharedPreferences prefs = activity.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
-        return prefs.getBoolean(KEY_KEEP_ON, true); // default ON until Settings exists
-    }
-
-    public void onExitRequested(MainActivity activity) {
-        boolean keepOn = readKeepOn(activity);
-        Log.d("ExitPolicy", "onExitRequested: keep_on=" + keepOn + ", torch_on=" + activity.isFlashlightCurrentlyOn());
-
-        if (activity.isFlashlightCurrentlyOn() && !keepOn) {
-            activity.turnOffFlashlightSafely();
-            Log.d("ExitPolicy", "Torch turned OFF per setting");
-        } else if (activity.isFlashlightCurrentlyOn()) {
-            Log.d("ExitPolicy", "Torch kept ON per setting");
+    public void onExitRequested(MainActivity activity, SettingsSnapshot settings) {
+        boolean keepOn = settings.keepLightOnClose;
+        boolean torchOn = activity.isFlashlightCurrentlyOn();
+        Log.d("ExitPolicy", "onExitRequested: keep_on=" + keepOn + ", torch_on=" + torchOn);
+
+        switch (LightPolicy.onExit(torchOn, keepOn)) {
+            case TURN_OFF:
+                activity.turnOffFlashlightSafely();
+                Log.d("ExitPolicy", "Torch turned OFF per setting");
+                break;
+            case KEEP_ON:
+                // The activity is about to go away - TorchService keeps the light (and its off switch)
+                if (activity.handOffTorchToService()) {
+                    Log.d("ExitPolicy", "Torch kept ON per setting, handed to TorchService");
+                } else {
+                    // Nothing would be left to switch it off
+                    activity.turnOffFlashlightSafely();
+                    Log.d("ExitPolicy", "Torch turned OFF, hand-off to TorchService refused");
+                }
+                break;
+            case NOTHING:
+            default:
+                break;
         }
 
         activity.finishAndRemoveTask();
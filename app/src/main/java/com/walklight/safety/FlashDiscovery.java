@@ -0,0 +1,88 @@
+package com.walklight.safety;
+
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraManager;
+import android.os.Build;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds every flash unit across all camera ids. Characteristics are fetched in parallel
+ * (each one is a cameraserver IPC) and the result is ranked best torch first.
+ */
+public final class FlashDiscovery {
+    private static final String TAG = "FlashlightHardware";
+    private static final int MAX_PARALLEL_QUERIES = 4;
+    private static final long IDLE_THREAD_SECONDS = 5;
+
+    // One pool for every discovery; its threads exit when idle, so between probes it holds none
+    private static final ThreadPoolExecutor queryPool = new ThreadPoolExecutor(
+            MAX_PARALLEL_QUERIES, MAX_PARALLEL_QUERIES, IDLE_THREAD_SECONDS, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, "WalklightFlashQuery"));
+
+    static {
+        queryPool.allowCoreThreadTimeOut(true);
+    }
+
+    private FlashDiscovery() {}
+
+    public static List<FlashUnit> discover(CameraManager cameraManager) throws Exception {
+        String[] cameraIds = cameraManager.getCameraIdList();
+        List<FlashUnit> units = new ArrayList<>();
+        if (cameraIds.length == 0) {
+            return units;
+        }
+
+        List<Callable<FlashUnit>> queries = new ArrayList<>(cameraIds.length);
+        for (String id : cameraIds) {
+            queries.add(() -> query(cameraManager, id));
+        }
+        for (Future<FlashUnit> result : queryPool.invokeAll(queries)) {
+            try {
+                FlashUnit unit = result.get();
+                if (unit != null) {
+                    units.add(unit);
+                }
+            } catch (Exception e) {
+                // One bad camera id (e.g. a disconnected external camera) shouldn't hide the others
+                Log.w(TAG, "⚠️ Skipping camera during flash discovery: " + e.getMessage());
+            }
+        }
+
+        units.sort(FlashUnit.RANKING); // Stable: equal units keep HAL order
+        Log.d(TAG, "🔍 Flash units (best first): " + units);
+        return units;
+    }
+
+    /** @return the unit, or null if this camera has no flash */
+    private static FlashUnit query(CameraManager cameraManager, String cameraId) throws Exception {
+        CameraCharacteristics characteristics = cameraManager.getCameraCharacteristics(cameraId);
+        Boolean flashAvailable = characteristics.get(CameraCharacteristics.FLASH_INFO_AVAILABLE);
+        if (flashAvailable == null || !flashAvailable) {
+            return null;
+        }
+        Integer facing = characteristics.get(CameraCharacteristics.LENS_FACING);
+        int maxLevel = TorchCapabilities.DEFAULT_MAX_LEVEL;
+        int defaultLevel = TorchCapabilities.DEFAULT_MAX_LEVEL;
+        boolean supportsStrength = false;
+
+        // PHASE 1: Check if this unit supports torch strength levels
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            Integer maxTorchStrength = characteristics.get(CameraCharacteristics.FLASH_INFO_STRENGTH_MAXIMUM_LEVEL);
+            Integer defaultTorchStrength = characteristics.get(CameraCharacteristics.FLASH_INFO_STRENGTH_DEFAULT_LEVEL);
+            if (maxTorchStrength != null && maxTorchStrength > 1) {
+                maxLevel = maxTorchStrength;
+                defaultLevel = defaultTorchStrength != null ? defaultTorchStrength : maxLevel;
+                supportsStrength = true;
+            }
+        }
+        return new FlashUnit(cameraId, maxLevel, defaultLevel, supportsStrength, facing != null ? facing : -1);
+    }
+}
@@ -0,0 +1,63 @@
+package com.walklight.safety;
+
+import android.hardware.camera2.CameraCharacteristics;
+
+import java.util.Comparator;
+
+/**
+ * One camera id that has a flash, with its torch strength range.
+ */
+public final class FlashUnit {
+    public final String cameraId;
+    public final int maxLevel;
+    public final int defaultLevel;
+    public final boolean supportsStrength;
+    /** CameraCharacteristics.LENS_FACING_* or -1 if unknown. */
+    public final int lensFacing;
+
+    public FlashUnit(String cameraId, int maxLevel, int defaultLevel, boolean supportsStrength, int lensFacing) {
+        this.cameraId = cameraId;
+        this.maxLevel = maxLevel;
+        this.defaultLevel = defaultLevel;
+        this.supportsStrength = supportsStrength;
+        this.lensFacing = lensFacing;
+    }
+
+    /**
+     * Best torch first: strength control, then widest strength range, then back-facing,
+     * then lowest camera id (the order the HAL lists them in) as a stable tie-break.
+     */
+    public static final Comparator<FlashUnit> RANKING = (a, b) -> {
+        if (a.supportsStrength != b.supportsStrength) {
+            return a.supportsStrength ? -1 : 1;
+        }
+        if (a.maxLevel != b.maxLevel) {
+            return Integer.compare(b.maxLevel, a.maxLevel);
+        }
+        boolean aBack = a.lensFacing == CameraCharacteristics.LENS_FACING_BACK;
+        boolean bBack = b.lensFacing == CameraCharacteristics.LENS_FACING_BACK;
+        if (aBack != bBack) {
+            return aBack ? -1 : 1;
+        }
+        return 0;
+    };
+
+    // Cache format: id:max:default:strength:facing
+    String serialize() {
+        return cameraId + ":" + maxLevel + ":" + defaultLevel + ":" + (supportsStrength ? 1 : 0) + ":" + lensFacing;
+    }
+
+    static FlashUnit parse(String value) {
+        String[] parts = value.split(":");
+        if (parts.length != 5) {
+            throw new IllegalArgumentException("Bad flash unit entry: " + value);
+        }
+        return new FlashUnit(parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                "1".equals(parts[3]), Integer.parseInt(parts[4]));
+    }
+
+    @Override
+    public String toString() {
+        return serialize();
+    }
+}
@@ -0,0 +1,45 @@
+package com.walklight.safety;
+
+import android.content.Context;
+
+/**
+ * Quick Settings tile that steps the torch intensity (torch_intensity_step_percent, wrapping
+ * back to the lowest step after 100%). Turns the torch on at the saved intensity when it's off.
+ */
+public class IntensityTileService extends TorchTileService {
+
+    @Override
+    public void onClick() {
+        Context appContext = getApplicationContext();
+        boolean wasOn = torchExecutor.isTorchOn();
+        int currentLevel = torchExecutor.getTorchLevel();
+        float step = getResources().getInteger(R.integer.torch_intensity_step_percent) / 100f;
+        TorchStartup.withCapabilities(this, capabilities -> {
+            if (!capabilities.hasFlash) return;
+            float intensity = TorchStartup.getStartIntensity();
+            if (wasOn && capabilities.supportsStrength) {
+                float current = currentLevel != StrengthCoalescer.NONE
+                        ? (float) currentLevel / capabilities.maxLevel : intensity;
+                intensity = current >= 1.0f - step / 2 ? step : Math.min(1.0f, current + step);
+                TorchStartup.saveIntensity(appContext, intensity);
+            } else if (wasOn) {
+                return; // Nothing to step without strength control
+            }
+            lightUp(appContext, capabilities, intensity);
+        });
+    }
+
+    @Override
+    protected int label() {
+        return R.string.tile_intensity_label;
+    }
+
+    @Override
+    protected CharSequence subtitle(boolean on) {
+        int level = torchExecutor.getTorchLevel();
+        if (!on || level == StrengthCoalescer.NONE) {
+            return super.subtitle(on);
+        }
+        return getString(R.string.torch_notification_intensity, Math.round(100f * level / torchExecutor.getMaxLevel()));
+    }
+}
@@ -0,0 +1,311 @@
+package com.walklight.safety;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ChangedPackages;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.net.Uri;
+import android.provider.Settings;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persistent index of launcher activities (package, class, label, enabled), built once in the
+ * background and then kept current per package: from PACKAGE_* broadcasts while the process runs,
+ * and from {@link PackageManager#getChangedPackages} for whatever changed while it didn't.
+ * Launch paths ask it whether a component exists instead of catching startActivity failures.
+ * Labels are in the locale the index was built for; a locale change rebuilds it.
+ * Until the first load finishes every query answers "unknown" optimistically (launchable).
+ */
+public final class LaunchableAppIndex {
+    private static final String TAG = "LaunchableAppIndex";
+    private static final String FILE_NAME = "launchable_apps.tsv";
+    private static final String FORMAT = "v2";
+
+    public static final class Entry {
+        public final String packageName;
+        public final String className;
+        public final String label;
+        public final boolean enabled;
+
+        Entry(String packageName, String className, String label, boolean enabled) {
+            this.packageName = packageName;
+            this.className = className;
+            this.label = label;
+            this.enabled = enabled;
+        }
+    }
+
+    /** Immutable; replaced wholesale on the background thread so readers never lock. */
+    private static final class Snapshot {
+        final Map<String, Entry> byComponent;
+        final Map<String, Entry> launcherByPackage;
+
+        Snapshot(Map<String, Entry> byComponent) {
+            this.byComponent = byComponent;
+            Map<String, Entry> launchers = new HashMap<>();
+            for (Entry entry : byComponent.values()) {
+                Entry current = launchers.get(entry.packageName);
+                if (current == null || (!current.enabled && entry.enabled)) {
+                    launchers.put(entry.packageName, entry);
+                }
+            }
+            this.launcherByPackage = launchers;
+        }
+    }
+
+    private static volatile LaunchableAppIndex instance;
+
+    private final Context context;
+    private final PackageManager pm;
+    private volatile Snapshot snapshot; // null until loaded
+    // BackgroundExecutor thread only
+    private int bootCount;
+    private int sequenceNumber;
+    private String labelLocales; // Locale list the stored labels were loaded in
+
+    private final BroadcastReceiver packageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            Uri data = intent.getData();
+            if (data == null) return;
+            String packageName = data.getSchemeSpecificPart();
+            BackgroundExecutor.execute(() -> {
+                if (snapshot == null) return; // The initial load covers it
+                refreshPackages(Collections.singleton(packageName));
+            });
+        }
+    };
+
+    // Labels come from loadLabel() - stale in the new language until rebuilt
+    private final BroadcastReceiver localeReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            BackgroundExecutor.execute(() -> {
+                if (snapshot == null || currentLocales().equals(labelLocales)) return;
+                rebuild("locale changed to " + currentLocales());
+            });
+        }
+    };
+
+    private LaunchableAppIndex(Context context) {
+        this.context = context.getApplicationContext();
+        this.pm = this.context.getPackageManager();
+    }
+
+    public static LaunchableAppIndex get(Context context) {
+        LaunchableAppIndex result = instance;
+        if (result == null) {
+            synchronized (LaunchableAppIndex.class) {
+                result = instance;
+                if (result == null) {
+                    result = new LaunchableAppIndex(context);
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Application.onCreate: load or build the index off the main thread and follow package changes. */
+    static void init(Context context) {
+        LaunchableAppIndex index = get(context);
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addDataScheme("package");
+        ContextCompat.registerReceiver(index.context, index.packageReceiver, filter,
+                ContextCompat.RECEIVER_NOT_EXPORTED);
+        ContextCompat.registerReceiver(index.context, index.localeReceiver,
+                new IntentFilter(Intent.ACTION_LOCALE_CHANGED), ContextCompat.RECEIVER_NOT_EXPORTED);
+        BackgroundExecutor.execute(index::loadOrBuild);
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /** False only when the index is loaded and the component is missing or disabled. */
+    public boolean isLaunchable(String packageName, String className) {
+        Snapshot current = snapshot;
+        if (current == null) return true;
+        Entry entry = current.byComponent.get(key(packageName, className));
+        return entry != null && entry.enabled;
+    }
+
+    /** False only when the index is loaded and the package has no enabled launcher activity. */
+    public boolean hasLauncher(String packageName) {
+        Snapshot current = snapshot;
+        if (current == null) return true;
+        Entry entry = current.launcherByPackage.get(packageName);
+        return entry != null && entry.enabled;
+    }
+
+    /** The package's launcher activity, or null if missing or the index isn't loaded yet. */
+    @Nullable
+    public Entry launcherFor(String packageName) {
+        Snapshot current = snapshot;
+        return current != null ? current.launcherByPackage.get(packageName) : null;
+    }
+
+    /** Enabled launcher activities, or null if the index isn't loaded yet. */
+    @Nullable
+    public List<Entry> launchableEntries() {
+        Snapshot current = snapshot;
+        if (current == null) return null;
+        List<Entry> entries = new ArrayList<>(current.byComponent.size());
+        for (Entry entry : current.byComponent.values()) {
+            if (entry.enabled) entries.add(entry);
+        }
+        return entries;
+    }
+
+    // ================================
+    // BACKGROUND THREAD
+    // ================================
+
+    private void loadOrBuild() {
+        long startNs = System.nanoTime();
+        int currentBoot = Settings.Global.getInt(context.getContentResolver(), Settings.Global.BOOT_COUNT, -1);
+        Map<String, Entry> loaded = read(currentBoot, currentLocales());
+        if (loaded != null) {
+            snapshot = new Snapshot(loaded);
+            // Catch up on anything installed, updated or removed while we weren't running
+            ChangedPackages changed = pm.getChangedPackages(sequenceNumber);
+            if (changed != null) {
+                sequenceNumber = changed.getSequenceNumber();
+                refreshPackages(new HashSet<>(changed.getPackageNames()));
+            }
+            Log.d(TAG, "Loaded " + loaded.size() + " launchable activities in "
+                    + (System.nanoTime() - startNs) / 1_000_000 + "ms");
+            return;
+        }
+
+        // First run, rebooted (sequence numbers restart at boot) or new locale: full build
+        bootCount = currentBoot;
+        ChangedPackages sinceBoot = pm.getChangedPackages(0);
+        sequenceNumber = sinceBoot != null ? sinceBoot.getSequenceNumber() : 0;
+        rebuild("built in " + (System.nanoTime() - startNs) / 1_000_000 + "ms");
+    }
+
+    private void rebuild(String reason) {
+        labelLocales = currentLocales();
+        Map<String, Entry> built = new HashMap<>();
+        for (Entry entry : query(null)) {
+            built.put(key(entry.packageName, entry.className), entry);
+        }
+        snapshot = new Snapshot(built);
+        write(built);
+        Log.d(TAG, "Rebuilt index of " + built.size() + " launchable activities: " + reason);
+    }
+
+    private String currentLocales() {
+        return context.getResources().getConfiguration().getLocales().toLanguageTags();
+    }
+
+    private void refreshPackages(Set<String> packageNames) {
+        Map<String, Entry> updated = new HashMap<>(snapshot.byComponent);
+        updated.values().removeIf(entry -> packageNames.contains(entry.packageName));
+        for (String packageName : packageNames) {
+            for (Entry entry : query(packageName)) {
+                updated.put(key(entry.packageName, entry.className), entry);
+            }
+        }
+        snapshot = new Snapshot(updated);
+        write(updated);
+        Log.d(TAG, "Refreshed " + packageNames);
+    }
+
+    private List<Entry> query(@Nullable String packageName) {
+        Intent launcher = new Intent(Intent.ACTION_MAIN).addCategory(Intent.CATEGORY_LAUNCHER);
+        if (packageName != null) launcher.setPackage(packageName);
+        List<ResolveInfo> activities = pm.queryIntentActivities(launcher, PackageManager.MATCH_DISABLED_COMPONENTS);
+        List<Entry> entries = new ArrayList<>(activities.size());
+        for (ResolveInfo info : activities) {
+            ActivityInfo activity = info.activityInfo;
+            entries.add(new Entry(activity.packageName, activity.name,
+                    info.loadLabel(pm).toString(), activity.isEnabled()));
+        }
+        return entries;
+    }
+
+    @Nullable
+    private Map<String, Entry> read(int currentBoot, String locales) {
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        if (!file.exists()) return null;
+        try (FileInputStream in = new AtomicFile(file).openRead();
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            // Header: format, boot count, package sequence number, label locales
+            String[] header = reader.readLine().split("\t", -1);
+            if (header.length != 4 || !FORMAT.equals(header[0])
+                    || Integer.parseInt(header[1]) != currentBoot || !locales.equals(header[3])) {
+                return null;
+            }
+            bootCount = currentBoot;
+            sequenceNumber = Integer.parseInt(header[2]);
+            labelLocales = locales;
+            Map<String, Entry> entries = new HashMap<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // package, class, enabled, label
+                String[] fields = line.split("\t", 4);
+                if (fields.length != 4) continue;
+                entries.put(key(fields[0], fields[1]),
+                        new Entry(fields[0], fields[1], fields[3], "1".equals(fields[2])));
+            }
+            return entries;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Discarding unreadable index: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(Map<String, Entry> entries) {
+        AtomicFile file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            writer.write(FORMAT + "\t" + bootCount + "\t" + sequenceNumber + "\t" + labelLocales + "\n");
+            for (Entry entry : entries.values()) {
+                writer.write(entry.packageName + "\t" + entry.className + "\t" + (entry.enabled ? "1" : "0")
+                        + "\t" + entry.label.replace('\t', ' ').replace('\n', ' ') + "\n");
+            }
+            writer.flush();
+            file.finishWrite(out);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write index: " + e.getMessage());
+            if (out != null) file.failWrite(out);
+        }
+    }
+
+    private static String key(String packageName, String className) {
+        return packageName + "/" + className;
+    }
+}
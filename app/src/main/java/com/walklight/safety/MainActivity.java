@@ -1,20 +1,18 @@
 package com.walklight.safety;
 
+import android.Manifest;
 import android.content.Context;
-import android.content.SharedPreferences;
-import android.graphics.Color;
-import android.hardware.camera2.CameraAccessException;
-import android.hardware.camera2.CameraCharacteristics;
 import android.hardware.camera2.CameraManager;
+import android.os.Build;
 import android.os.Bundle;
 import android.util.Log;
 import android.content.Intent;
+import android.content.res.Configuration;
 import android.net.Uri;
 import android.content.pm.PackageManager;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.CompoundButton;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -24,28 +22,47 @@ import androidx.core.view.WindowInsetsCompat;
 import androidx.core.graphics.Insets;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.constraintlayout.widget.ConstraintLayout;
+import androidx.constraintlayout.widget.ConstraintSet;
 
 import com.google.android.material.button.MaterialButton;
 import android.widget.ImageButton;
 import com.google.android.material.slider.Slider;
 import com.google.android.material.switchmaterial.SwitchMaterial;
 import androidx.appcompat.app.AlertDialog;
-import androidx.preference.PreferenceManager;
+import androidx.annotation.NonNull;
+import androidx.core.app.ActivityCompat;
+import androidx.core.content.ContextCompat;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 
 public class MainActivity extends AppCompatActivity {
 
     private static final String TAG = "MainActivity";
+    private static final int REQUEST_NOTIFICATION_PERMISSION = 1;
     private static final String DEBUG_TAG = "WalklightD3";
     private static final String STATE_DEBUG_TAG = "D3StateDebug";  // For state saving/restoration only
     
     // Configuration now lives in: app/src/main/res/values/exit_button_config.xml
     
+    private TorchExecutor torchExecutor; // Owns all torch HAL calls on its own worker thread
     private CameraManager cameraManager;
     private String cameraId;
-    private boolean isFlashlightOn = false;
+    private TorchSession session; // Process-scoped: outlives recreation of this activity
+    private boolean reboundToSession; // Recreated in the same process - the session is live
+    private TorchStateMachine torchState; // OFF / ON(level) / SUSPENDED / RESTORING (session's)
+    private UiSnapshot launchSnapshot; // Fresh launch: last UI state, applied before the first draw
+    private boolean expectTorchOn; // Snapshot had the light on and auto-start is lighting it - lay out for ON now
+    private final TorchExecutor.TorchStateListener torchStateListener = this::onHardwareTorchChanged;
     private boolean hasFlash = false;
     private boolean hasFlashIntensityControl = false; // PHASE 1: Track if device supports variable intensity
     private int maxTorchStrength = 100; // Default, will be updated from device capabilities
+    private TorchCapabilities capabilitiesToRevalidate; // Set when launched from the capability cache
+    private int torchRequestGeneration; // Bumped by every ON / OFF request - older ON results are stale
+    private float earlyLightIntensity = TorchStartup.NO_EARLY_LIGHT; // This launch's torch-first ON
     
     /**
      * D3 FIX: Flag to track when entering multi-window mode via user button click
@@ -54,119 +71,257 @@ public class MainActivity extends AppCompatActivity {
      * READ BY: onPause() - checks flag to determine if pause is due to multi-window vs real pause
      */
     private boolean isEnteringMultiWindow = false;
+    private SplitScreenController splitScreen; // Window-event driven enter/exit transitions
     
     private SwitchMaterial lightToggle;
-    private Slider ledIntensitySlider;
-    private Slider screenBrightnessSlider;
-    private Slider syncedIntensitySlider;
-    private Slider screenOnlySlider;
+    private Slider primarySlider; // SliderRoles.primary(mode): screen-only / synced / LED half
+    private Slider secondarySlider; // SliderRoles.secondary(mode): screen half, independent mode only
+    private TextView primaryLabel;
+    private TextView secondaryLabel;
+    private SliderRoles sliderRoles; // Role values (session's) - the two sliders only show them
+    private boolean slidersRestored; // Role values came from the session or the saved state
+    private int boundMode = UiSnapshot.MODE_SCREEN_ONLY; // Roles the two sliders play right now
+    private int syncedLabelRes = R.string.intensity; // Synced role's label (set by ControlsRenderer)
     private SwitchMaterial syncSwitch;
     private TextView syncLabel;
     private View colorRectangle;
-    private LinearLayout syncModeContainer;
-    private LinearLayout independentModeContainer;
-    private LinearLayout screenOnlyModeContainer;
-    private TextView syncedIntensityLabel;
-    private LinearLayout aboutButton;
+    private ScreenLightEngine screenLight; // Backlight + colorRectangle color, one update per frame
+    private View aboutButton;
+    private View aboutText;
     private MaterialButton exitButtonTopCorner; // UNUSED: Top corner exit button (kept for potential future use)
     private ImageButton exitButtonFloating; // ACTIVE: Custom PNG exit button
     private ImageButton multiWindowButton; // ACTIVE: Multi-window toggle button (changes icon based on mode)
     
-    private boolean isUpdatingSliders = false; // Prevent infinite loops during sync
-    private boolean wasFlashlightOnBeforePause = false; // Track state for resume
-    private boolean lastSyncState = false; // Remember sync state when flashlight is off
+    // All slider input goes through here, applied once per frame
+    private final SliderDispatcher sliderDispatcher = new SliderDispatcher(new SliderDispatcher.Target() {
+        @Override
+        public boolean isSyncEnabled() {
+            return syncSwitch != null && syncSwitch.isChecked();
+        }
+
+        @Override
+        public boolean isTorchOn() {
+            return torchState.isOn();
+        }
+
+        @Override
+        public void applyTorchLevel(float intensity) {
+            updateFlashlightIntensity(intensity);
+        }
+
+        @Override
+        public void applyScreenLevel(float intensity) {
+            // Already frame-aligned - no second frame of latency in the engine
+            screenLight.applyNow(intensity);
+            session.screenBrightness = intensity;
+        }
+
+        @Override
+        public void mirrorLedSlider(float value) {
+            setSliderValue(SliderSync.LED, value);
+        }
+
+        @Override
+        public void mirrorScreenSlider(float value) {
+            setSliderValue(SliderSync.SCREEN, value);
+        }
+    });
+    // Applies only the control properties that changed (slider roles, sync switch, synced label)
+    private final ControlsRenderer controlsRenderer = new ControlsRenderer(new ControlsRenderer.Sink() {
+        @Override
+        public void showMode(int mode) {
+            bindSliders(mode);
+            // D2 FIX: The now-visible slider decides the screen level - lands in the same frame
+            // (D3 FIX: no intensity update - the light is already on at the right level)
+            updateColorRectangleBrightness(getCurrentActualScreenBrightness());
+            EventTracer.trace(EventTracer.MODE_SHOWN, mode, EventTracer.percent(session.screenBrightness));
+        }
+
+        @Override
+        public void setSyncControlsVisible(boolean visible) {
+            syncSwitch.setVisibility(visible ? View.VISIBLE : View.GONE);
+            syncLabel.setVisibility(visible ? View.VISIBLE : View.GONE);
+        }
+
+        @Override
+        public void setSyncChecked(boolean checked) {
+            // Restoring the remembered state isn't a user toggle
+            syncSwitch.setOnCheckedChangeListener(null);
+            syncSwitch.setChecked(checked);
+            syncSwitch.setOnCheckedChangeListener(MainActivity.this::onSyncSwitchChanged);
+        }
+
+        @Override
+        public void setSyncedLabel(int label) {
+            syncedLabelRes = label == ControlsRenderer.LABEL_INTENSITY
+                    ? R.string.intensity : R.string.screen_brightness;
+            if (boundMode == UiSnapshot.MODE_SYNCED) {
+                primaryLabel.setText(syncedLabelRes);
+            }
+        }
+    });
     
     // Multi-window mode tracking
     private boolean isInMultiWindowMode = false;
     
-    // Track actual current values for proper sync initialization
-    private float currentActualScreenBrightness = 1.0f;
-    private float currentActualLedIntensity = 1.0f;
+    // Sync state (remembered while the flashlight is off) and the actual current LED / screen
+    // levels live in the session: session.syncEnabled, session.ledIntensity, session.screenBrightness
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
-        Log.d(DEBUG_TAG, "STATE --> enter onCreate()");
-        Log.d(DEBUG_TAG, "🔍 WHO CALLED ME? onCreate");
-        StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-        Log.d(DEBUG_TAG, "🔍 CALLER: " + stackTrace[3].toString());
+        EventTracer.trace(EventTracer.ON_CREATE, EventTracer.flag(savedInstanceState != null));
         super.onCreate(savedInstanceState);
+        session = TorchSession.get(this);
+        torchState = session.torchState;
+        reboundToSession = savedInstanceState != null && session.isBound();
+        if (!reboundToSession) {
+            reconcileTorchState(); // Before anything decides from torchState
+        }
+        launchSnapshot = savedInstanceState == null ? UiStateStore.get(this) : null;
+        sliderRoles = session.sliderRoles;
+        // Sliders don't save their own state: role values are the session's, or after process death the bundle's
+        slidersRestored = reboundToSession || savedInstanceState != null
+                && sliderRoles.restore(savedInstanceState.getFloatArray("slider_values"));
+        if (savedInstanceState == null) {
+            StartupMetrics.onLaunchRequested(); // Time-to-light counts only this launch's ON
+            // Torch-first: queue the LED at the last saved intensity before any inflation
+            earlyLightIntensity = TorchStartup.lightEarly(this);
+        }
         setContentView(R.layout.activity_main);
 
-        // Set default values for preferences on first run
-        PreferenceManager.setDefaultValues(this, "walklight_settings", MODE_PRIVATE, R.xml.settings_preferences, false);
-        
-        // Log current preference state for debugging  
-        android.content.SharedPreferences prefs = getSharedPreferences("walklight_settings", MODE_PRIVATE);
-        boolean keepLightOn = prefs.getBoolean("keep_light_on_close", true);
-        Log.d(TAG, "MainActivity: keep_light_on_close DATA = " + keepLightOn);
-
         // Handle system insets for proper layout positioning
         setupWindowInsets();
+        splitScreen = new SplitScreenController(this);
+        getWindow().getDecorView().addOnLayoutChangeListener(
+                (v, left, top, right, bottom, oldLeft, oldTop, oldRight, oldBottom) ->
+                        splitScreen.onWindowLayoutChanged());
 
         initializeCamera(); // MUST come before initializeViews() to set hardware capabilities
         initializeViews();
         setupClickListeners();
+        // Hardware torch callbacks are the source of truth (also catches Quick Settings / other apps)
+        torchExecutor.addTorchStateListener(torchStateListener);
         
         // D3 FIX: Check if this is activity recreation or fresh launch
-        if (savedInstanceState != null) {
-            // Activity recreation - restore previous state
+        if (reboundToSession) {
+            // Activity recreation in the same process - the torch never left the session
+            lightToggle.setOnCheckedChangeListener(null); // See the UGLY HACK below
+            bindToSession();
+            lightToggle.post(() -> lightToggle.setOnCheckedChangeListener(this::onLightToggleChanged));
+        } else if (savedInstanceState != null) {
+            // Activity recreation after process death - restore previous state
             boolean wasLightOn = savedInstanceState.getBoolean("flashlight_was_on", false);
             float savedIntensity = savedInstanceState.getFloat("led_intensity", 1.0f);
-            currentActualLedIntensity = savedIntensity; // Store for getCurrentActualLedIntensity()
+            session.ledIntensity = savedIntensity; // Store for getCurrentActualLedIntensity()
             boolean currentToggleState = lightToggle.isChecked();
             
-            Log.d(STATE_DEBUG_TAG, "🎯 RECREATION: saved=" + wasLightOn + ", toggle=" + currentToggleState + ", intensity=" + savedIntensity);
-            
             // UGLY HACK: Temporarily disable listener to prevent Android's automatic state restoration from triggering it
-            Log.d(STATE_DEBUG_TAG, "🎯 UGLY HACK: Disabling toggle listener during recreation");
             lightToggle.setOnCheckedChangeListener(null);
             
             if (wasLightOn != currentToggleState) {
-                Log.d(STATE_DEBUG_TAG, "🎯 SYNCING: toggle to " + wasLightOn + " with intensity " + savedIntensity);
-                try {
-                    // Use direct intensity instead of relying on listener + getCurrentActualLedIntensity()
-                    if (wasLightOn) {
-                        turnOnFlashlightWithIntensity(savedIntensity);
-                    } else {
-                        turnOffFlashlight();
-                    }
-                } catch (CameraAccessException e) {
-                    Log.e(STATE_DEBUG_TAG, "🎯 RECREATION ERROR: Failed to sync flashlight", e);
-                    // Fallback to old method
-                    lightToggle.setChecked(wasLightOn);
+                // Use direct intensity instead of relying on listener + getCurrentActualLedIntensity()
+                if (wasLightOn && torchExecutor.isTorchOn()) {
+                    // LED stayed on through the recreation - attach to it, no HAL call
+                    adoptRunningTorch(torchExecutor.getTorchLevel(), false);
+                } else if (wasLightOn) {
+                    turnOnFlashlightWithIntensity(savedIntensity);
+                } else {
+                    turnOffFlashlight();
                 }
-            } else {
-                Log.d(STATE_DEBUG_TAG, "🎯 MATCH: toggle already correct");
             }
             
             // Re-enable listener AFTER Android finishes state restoration using post()
-            lightToggle.post(() -> {
-                lightToggle.setOnCheckedChangeListener(this::onLightToggleChanged);
-                Log.d(STATE_DEBUG_TAG, "🎯 UGLY HACK: Re-enabled toggle listener after state restoration");
-            });
+            lightToggle.post(() -> lightToggle.setOnCheckedChangeListener(this::onLightToggleChanged));
         } else {
             // Real app launch - auto-start as normal
-            Log.d(STATE_DEBUG_TAG, "🎯 FRESH LAUNCH: auto-starting");
             autoStartFlashlight();
+            requestNotificationPermissionIfNeeded();
+        }
+
+        if (capabilitiesToRevalidate != null) {
+            torchExecutor.revalidateCapabilities(this, capabilitiesToRevalidate, this::onCapabilitiesRevalidated);
+            capabilitiesToRevalidate = null;
         }
-        Log.d(DEBUG_TAG, "STATE <-- exit onCreate()");
+        session.markBound();
+    }
+
+    /**
+     * Fresh launch: the session still holds whatever the last activity left (ON, SUSPENDED,
+     * RESTORING), and the tile or notification may have changed the torch since. Start from
+     * what the hardware last reported instead.
+     */
+    private void reconcileTorchState() {
+        TorchExecutor executor = session.executor;
+        if (executor.isTorchOn()) {
+            int level = executor.getTorchLevel();
+            torchState.markOn(level != StrengthCoalescer.NONE ? level : torchState.getLevel());
+        } else {
+            torchState.markOff();
+        }
+        EventTracer.trace(EventTracer.TORCH_RECONCILED, torchState.getState().ordinal(), torchState.getLevel());
+    }
+
+    /**
+     * Recreated activity: take torch state, levels and sync mode from the live session.
+     * No capability lookup, no torch command - the LED is already where the session says.
+     */
+    private void bindToSession() {
+        EventTracer.trace(EventTracer.SESSION_REBOUND, torchState.getState().ordinal(),
+                EventTracer.flag(session.syncEnabled));
+        lightToggle.setChecked(torchState.isOn());
+        updateLayoutMode();
     }
     
     @Override
     protected void onStart() {
-        Log.d(DEBUG_TAG, "STATE --> enter onStart()");
+        EventTracer.trace(EventTracer.ON_START);
         super.onStart();
-        Log.d(DEBUG_TAG, "STATE <-- exit onStart()");
     }
     
+    /**
+     * Split-screen / resize / rotation arrive here instead of recreating the activity
+     * (manifest configChanges): no re-inflation, camera discovery or torch re-issue.
+     * Only what depends on the new size is rebound - size-qualified resources and insets.
+     */
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        EventTracer.trace(EventTracer.CONFIG_CHANGED, newConfig.screenWidthDp, newConfig.screenHeightDp);
+        applySizeResources();
+        ViewCompat.requestApplyInsets(findViewById(android.R.id.content));
+        updateMultiWindowButtonIcon();
+    }
+
+    // Values that differ between values / values-sw400dp / values-sw600dp
+    private void applySizeResources() {
+        ConstraintLayout root = findViewById(R.id.mainRoot);
+        if (root != null) {
+            // The flat layout has no panel padding - control_panel_padding is the edge margins
+            int padding = getResources().getDimensionPixelSize(R.dimen.control_panel_padding);
+            ConstraintSet panel = new ConstraintSet();
+            panel.clone(root);
+            panel.constrainHeight(R.id.controlPanelTop, padding);
+            panel.setMargin(R.id.lightLabel, ConstraintSet.START, padding);
+            panel.setMargin(R.id.aboutButton, ConstraintSet.END, padding);
+            panel.setMargin(R.id.primarySlider, ConstraintSet.START, padding);
+            panel.setMargin(R.id.primarySlider, ConstraintSet.BOTTOM, padding);
+            panel.setGoneMargin(R.id.primarySlider, ConstraintSet.END, padding);
+            panel.setMargin(R.id.secondarySlider, ConstraintSet.END, padding);
+            panel.setMargin(R.id.secondarySlider, ConstraintSet.BOTTOM, padding);
+            panel.applyTo(root);
+        }
+        if (syncLabel != null) {
+            syncLabel.setText(R.string.sync_controls);
+        }
+    }
+
     private void setupWindowInsets() {
-        Log.d(DEBUG_TAG, "--> Entering setupWindowInsets()");
         View rootView = findViewById(android.R.id.content);
         ViewCompat.setOnApplyWindowInsetsListener(rootView, (v, insets) -> {
             Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
             
             // Apply bottom inset to control panel to avoid navigation bar overlap
-            LinearLayout controlPanel = findViewById(R.id.controlPanel);
+            View controlPanel = findViewById(R.id.controlPanel);
             if (controlPanel != null) {
                 ViewGroup.MarginLayoutParams params = (ViewGroup.MarginLayoutParams) controlPanel.getLayoutParams();
                 params.bottomMargin = systemBars.bottom;
@@ -175,37 +330,33 @@ public class MainActivity extends AppCompatActivity {
             
             return insets;
         });
-        Log.d(DEBUG_TAG, "<-- Exiting setupWindowInsets()");
     }
     
     private void autoStartFlashlight() {
-        Log.d(DEBUG_TAG, "--> Entering autoStartFlashlight()");
         // Only auto-start if we have flash capability
         if (hasFlash) {
-            try {
-                turnOnFlashlight();
-            } catch (CameraAccessException e) {
-                e.printStackTrace();
+            if (earlyLightIntensity != TorchStartup.NO_EARLY_LIGHT) {
+                // Attach to the torch-first ON: the role driving the LED in this mode (synced or
+                // LED) takes its intensity, so the planner sends no HAL call
+                setLedSliderSilently(earlyLightIntensity);
             }
+            turnOnFlashlight();
         }
-        Log.d(DEBUG_TAG, "<-- Exiting autoStartFlashlight()");
     }
 
     private void initializeViews() {
-        Log.d(DEBUG_TAG, "--> Entering initializeViews()");
         lightToggle = findViewById(R.id.lightToggle);
-        ledIntensitySlider = findViewById(R.id.ledIntensitySlider);
-        screenBrightnessSlider = findViewById(R.id.screenBrightnessSlider);
-        syncedIntensitySlider = findViewById(R.id.syncedIntensitySlider);
-        screenOnlySlider = findViewById(R.id.screenOnlySlider);
+        lightToggle.setEnabled(hasFlash); // initializeCamera() runs before the views exist
+        primarySlider = findViewById(R.id.primarySlider);
+        secondarySlider = findViewById(R.id.secondarySlider);
+        primaryLabel = findViewById(R.id.primaryLabel);
+        secondaryLabel = findViewById(R.id.secondaryLabel);
         syncSwitch = findViewById(R.id.syncSwitch);
         syncLabel = findViewById(R.id.syncLabel);
         colorRectangle = findViewById(R.id.colorRectangle);
-        syncModeContainer = findViewById(R.id.syncModeContainer);
-        independentModeContainer = findViewById(R.id.independentModeContainer);
-        screenOnlyModeContainer = findViewById(R.id.screenOnlyModeContainer);
-        syncedIntensityLabel = findViewById(R.id.syncedIntensityLabel);
+        screenLight = new ScreenLightEngine(getWindow(), colorRectangle);
         aboutButton = findViewById(R.id.aboutButton);
+        aboutText = findViewById(R.id.aboutText);
         
         // Initialize exit button (configuration in exit_button_config.xml)
         exitButtonTopCorner = findViewById(R.id.exitButtonTopCorner);
@@ -228,7 +379,6 @@ public class MainActivity extends AppCompatActivity {
             multiWindowButton.setVisibility(showSplitScreen ? View.VISIBLE : View.GONE);
             // Set initial icon based on current mode
             updateMultiWindowButtonIcon();
-            Log.d(TAG, "Multi-window button initialized. Visible: " + (showSplitScreen ? "YES" : "NO"));
         } else {
             Log.e(TAG, "Multi-window button NOT FOUND in layout!");
         }
@@ -237,20 +387,16 @@ public class MainActivity extends AppCompatActivity {
         // TODO: Re-enable after testing
         // configureUIBasedOnHardware();
         
-        // Initialize all sliders consistently using centralized logic
-        initializeAllSlidersToCurrentState();
+        if (launchSnapshot != null) {
+            // Fresh launch: sliders, sync mode and screen level from last time, so the first frame is final
+            applyUiSnapshot(launchSnapshot);
+        } else if (!slidersRestored) {
+            // Initialize all sliders consistently using centralized logic
+            initializeAllSlidersToCurrentState();
+        }
         
-        // Set initial layout mode based on sync switch state
+        // Initial layout: the first render applies every control property (sync controls start hidden)
         updateLayoutMode();
-        
-        
-        // Set initial sync toggle appearance (starts OFF) and hide since flashlight starts OFF
-        syncSwitch.setVisibility(View.GONE);  // Hidden initially since flashlight starts OFF
-        syncLabel.setVisibility(View.GONE);   // Hidden initially since flashlight starts OFF
-        
-        // Set initial synced intensity label
-        updateSyncedIntensityLabel();
-        Log.d(DEBUG_TAG, "<-- Exiting initializeViews()");
     }
 
     // Exit button configuration now handled by resources in exit_button_config.xml
@@ -270,16 +416,6 @@ public class MainActivity extends AppCompatActivity {
             // Device only supports basic on/off flash - hide intensity-related controls
             android.util.Log.d("FlashlightHardware", "⚠️ No intensity control - hiding LED slider and sync controls");
             
-            // Hide LED intensity slider (in independent mode)
-            if (ledIntensitySlider != null) {
-                ledIntensitySlider.setVisibility(View.GONE);
-            }
-            
-            // Hide synced intensity slider (in sync mode)  
-            if (syncedIntensitySlider != null) {
-                syncedIntensitySlider.setVisibility(View.GONE);
-            }
-            
             // Hide sync controls completely since there's nothing to sync
             if (syncSwitch != null) {
                 syncSwitch.setVisibility(View.GONE);
@@ -288,20 +424,9 @@ public class MainActivity extends AppCompatActivity {
                 syncLabel.setVisibility(View.GONE);
             }
             
-            // Hide sync mode container
-            if (syncModeContainer != null) {
-                syncModeContainer.setVisibility(View.GONE);
-            }
-            
-            // Hide independent mode container  
-            if (independentModeContainer != null) {
-                independentModeContainer.setVisibility(View.GONE);
-            }
-            
-            // Ensure screen-only mode is always visible for devices without intensity control
-            if (screenOnlyModeContainer != null) {
-                screenOnlyModeContainer.setVisibility(View.VISIBLE);
-            }
+            // Screen-only slider for devices without intensity control (no LED half, no synced role)
+            bindSliders(UiSnapshot.MODE_SCREEN_ONLY);
+            controlsRenderer.invalidate(); // Written behind the renderer's back
             
             android.util.Log.d("FlashlightHardware", "✅ Simple UI configured: Light ON/OFF + Screen brightness only");
             
@@ -312,72 +437,70 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void initializeCamera() {
-        // Check if device has flash
-        hasFlash = getPackageManager().hasSystemFeature(PackageManager.FEATURE_CAMERA_FLASH);
-        
-        if (!hasFlash) {
-            showToast("Device doesn't have flash!");
-            lightToggle.setEnabled(false);
-            hasFlashIntensityControl = false;
+        torchExecutor = session.executor;
+        cameraManager = session.cameraManager;
+
+        if (session.capabilities != null) {
+            // Already resolved in this process (revalidation queued once) - no cache read, no cameraserver IPC
+            applyCapabilities(session.capabilities);
             return;
         }
+        TorchCapabilities cached = CapabilityCache.read(this);
+        if (cached != null) {
+            // Warm launch: no cameraserver IPC before the torch can be powered.
+            // Revalidated at the end of onCreate(), queued behind the first ON command.
+            applyCapabilities(cached);
+            capabilitiesToRevalidate = cached;
+            session.capabilities = cached;
+        } else {
+            // First launch on this build - discover synchronously and remember the result
+            TorchCapabilities discovered = TorchCapabilities.discover(this, cameraManager);
+            CapabilityCache.write(this, discovered);
+            applyCapabilities(discovered);
+            if (discovered.cacheable) {
+                session.capabilities = discovered; // Transient failures are retried by the next activity
+            }
+        }
+    }
 
-        try {
-            cameraManager = (CameraManager) getSystemService(Context.CAMERA_SERVICE);
-            if (cameraManager != null) {
-                String[] cameraIdList = cameraManager.getCameraIdList();
-                if (cameraIdList.length > 0) {
-                    cameraId = cameraIdList[0];
-                    
-                    // PHASE 1: Check if device supports torch strength levels
-                    if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.TIRAMISU) {
-                        try {
-                            CameraCharacteristics characteristics = cameraManager.getCameraCharacteristics(cameraId);
-                            Integer maxTorchStrengthObj = characteristics.get(CameraCharacteristics.FLASH_INFO_STRENGTH_MAXIMUM_LEVEL);
-                            Integer defaultTorchStrength = characteristics.get(CameraCharacteristics.FLASH_INFO_STRENGTH_DEFAULT_LEVEL);
-                            
-                            if (maxTorchStrengthObj != null && maxTorchStrengthObj > 1) {
-                                maxTorchStrength = maxTorchStrengthObj;
-                                hasFlashIntensityControl = true;
-                                android.util.Log.d("FlashlightHardware", "✅ Device supports intensity control - Max strength: " + maxTorchStrength);
-                            } else {
-                                hasFlashIntensityControl = false;
-                                android.util.Log.d("FlashlightHardware", "⚠️ Device has flash but NO intensity control (simple on/off only)");
-                            }
-                        } catch (Exception strengthCheckException) {
-                            // Torch strength check failed - assume no intensity control
-                            hasFlashIntensityControl = false;
-                            android.util.Log.d("FlashlightHardware", "⚠️ Torch strength check failed - assuming no intensity control");
-                        }
-                    } else {
-                        // Older Android versions don't support intensity control
-                        hasFlashIntensityControl = false;
-                        android.util.Log.d("FlashlightHardware", "⚠️ Android version < API 33 - no intensity control available");
-                    }
-                    
-                    // Log hardware capabilities summary
-                    android.util.Log.d("FlashlightHardware", "🔍 Hardware Detection Summary:");
-                    android.util.Log.d("FlashlightHardware", "- Has Flash: " + hasFlash);
-                    android.util.Log.d("FlashlightHardware", "- Has Intensity Control: " + hasFlashIntensityControl);
-                    android.util.Log.d("FlashlightHardware", "- Max Torch Strength: " + maxTorchStrength);
-                } else {
-                    showToast("No camera found!");
-                    lightToggle.setEnabled(false);
-                    hasFlash = false;
-                    hasFlashIntensityControl = false;
-                }
-            } else {
-                showToast("Camera service not available!");
+    private void applyCapabilities(TorchCapabilities capabilities) {
+        hasFlash = capabilities.hasFlash;
+        cameraId = capabilities.cameraId;
+        maxTorchStrength = capabilities.maxLevel;
+        hasFlashIntensityControl = capabilities.supportsStrength;
+
+        if (hasFlash) {
+            torchExecutor.bindCapabilities(capabilities);
+        } else {
+            showToast(capabilities.unavailableReason);
+            if (lightToggle != null) {
                 lightToggle.setEnabled(false);
-                hasFlash = false;
-                hasFlashIntensityControl = false;
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            showToast("Error initializing camera: " + e.getMessage());
-            lightToggle.setEnabled(false);
-            hasFlash = false;
-            hasFlashIntensityControl = false;
+        }
+
+        EventTracer.trace(EventTracer.CAPABILITIES_APPLIED, EventTracer.flag(hasFlash),
+                hasFlashIntensityControl ? maxTorchStrength : -1);
+    }
+
+    /**
+     * Background revalidation found different hardware than the cache (cache already repaired).
+     */
+    private void onCapabilitiesRevalidated(TorchCapabilities fresh) {
+        if (isFinishing() || isDestroyed()) {
+            // Posted by the executor, never cancelled - the next activity binds the fresh report
+            session.capabilities = fresh;
+            return;
+        }
+        android.util.Log.w("FlashlightHardware", "⚠️ Cached capabilities were stale - applying " + fresh);
+        String previousCameraId = cameraId;
+        if (torchState.isOn() && previousCameraId != null && !previousCameraId.equals(fresh.cameraId)) {
+            torchExecutor.requestOff(previousCameraId, torchStateListener, null); // Don't leave the old flash unit lit
+        }
+        session.capabilities = fresh;
+        applyCapabilities(fresh);
+        if (torchState.isOn()) {
+            // Re-issue at the current slider level with the corrected camera / strength range
+            turnOnFlashlight();
         }
     }
 
@@ -385,80 +508,31 @@ public class MainActivity extends AppCompatActivity {
         // Light toggle switch
         lightToggle.setOnCheckedChangeListener(this::onLightToggleChanged);
 
-        // LED Intensity Slider
-        ledIntensitySlider.addOnChangeListener((slider, value, fromUser) -> {
-            if (isUpdatingSliders) return; // Prevent callback loops
-            
-            try {
-                if (fromUser && isFlashlightOn) {
-                    updateFlashlightIntensity(value);
-                }
-                
-                // If sync is enabled, update screen brightness AND move screen slider
-                if (fromUser && syncSwitch != null && syncSwitch.isChecked()) {
-                    updateColorRectangleBrightness(value);
-                    // Safely move screen slider to match
-                    isUpdatingSliders = true;
-                    screenBrightnessSlider.setValue(value);
-                    isUpdatingSliders = false;
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-                isUpdatingSliders = false; // Reset flag on error
+        // Intensity sliders - role follows the mode; user input is collected and applied once per frame
+        primarySlider.addOnChangeListener((slider, value, fromUser) ->
+                onBoundSliderChanged(SliderRoles.primary(boundMode), value, fromUser));
+        secondarySlider.addOnChangeListener((slider, value, fromUser) ->
+                onBoundSliderChanged(SliderRoles.secondary(boundMode), value, fromUser));
+        // A drag is one interaction for the layout pass / view write counters
+        Slider.OnSliderTouchListener dragCounter = new Slider.OnSliderTouchListener() {
+            @Override
+            public void onStartTrackingTouch(@NonNull Slider slider) {
+                controlsRenderer.beginInteraction();
             }
-        });
 
-        // Screen Brightness Slider  
-        screenBrightnessSlider.addOnChangeListener((slider, value, fromUser) -> {
-            if (isUpdatingSliders) return; // Prevent callback loops
-            
-            try {
-                updateColorRectangleBrightness(value);
-                
-                // If sync is enabled, update LED intensity AND move LED slider
-                if (fromUser && syncSwitch != null && syncSwitch.isChecked()) {
-                    if (isFlashlightOn) {
-                        updateFlashlightIntensity(value);
-                    }
-                    // Safely move LED slider to match
-                    isUpdatingSliders = true;
-                    ledIntensitySlider.setValue(value);
-                    isUpdatingSliders = false;
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-                isUpdatingSliders = false; // Reset flag on error
+            @Override
+            public void onStopTrackingTouch(@NonNull Slider slider) {
             }
-        });
-
-        // Synced Intensity Slider (for sync mode)
-        syncedIntensitySlider.addOnChangeListener((slider, value, fromUser) -> {
-            try {
-                if (fromUser && !isUpdatingSliders) {
-                    updateFlashlightIntensity(value);
-                    updateColorRectangleBrightness(value);
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        });
-
-        // Screen Only Slider (for screen-only mode)
-        screenOnlySlider.addOnChangeListener((slider, value, fromUser) -> {
-            try {
-                if (fromUser && !isUpdatingSliders) {
-                    updateColorRectangleBrightness(value);
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        });
+        };
+        primarySlider.addOnSliderTouchListener(dragCounter);
+        secondarySlider.addOnSliderTouchListener(dragCounter);
 
         // Sync Switch - toggle between layouts and sync values
         syncSwitch.setOnCheckedChangeListener(this::onSyncSwitchChanged);
 
         // About Button
         aboutButton.setOnClickListener(this::onAboutButtonClicked);
+        aboutText.setOnClickListener(this::onAboutButtonClicked);
         
         // Button Click Listeners
         if (exitButtonFloating != null) {
@@ -469,6 +543,9 @@ public class MainActivity extends AppCompatActivity {
         if (multiWindowButton != null) {
             multiWindowButton.setOnClickListener(this::onMultiWindowButtonClicked);
         }
+
+        // Real layout passes of the window, counted per interaction for dumpsys
+        findViewById(R.id.mainRoot).getViewTreeObserver().addOnGlobalLayoutListener(controlsRenderer::onLayoutPass);
     }
 
     // ================================
@@ -479,45 +556,37 @@ public class MainActivity extends AppCompatActivity {
      * Handle light toggle switch changes (user interaction)
      */
     private void onLightToggleChanged(CompoundButton button, boolean isChecked) {
-        Log.d(DEBUG_TAG, "--> Light toggle changed to: " + isChecked);
-        Log.d(DEBUG_TAG, "🔍 WHO CALLED ME? Previous state: " + button.isChecked() + " → New state: " + isChecked);
-        StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-        Log.d(DEBUG_TAG, "🔍 CALLER: " + stackTrace[3].toString());
+        EventTracer.trace(EventTracer.TOGGLE_CHANGED, EventTracer.flag(isChecked));
+        controlsRenderer.beginInteraction();
         try {
             if (isChecked) {
-                Log.d(DEBUG_TAG, "User wants flashlight ON");
                 turnOnFlashlight();
             } else {
-                Log.d(DEBUG_TAG, "User wants flashlight OFF");
                 turnOffFlashlight();
             }
         } catch (Exception e) {
             e.printStackTrace();
             showToast("Error controlling flashlight: " + e.getMessage());
-            // Reset toggle on error
-            Log.d(DEBUG_TAG, "🚨 ERROR HANDLER: About to call lightToggle.setChecked(false) - this will trigger listener!");
+            // Reset toggle on error (re-enters this listener with isChecked=false)
             lightToggle.setChecked(false);
-            Log.d(DEBUG_TAG, "🚨 ERROR HANDLER: JUST CALLED lightToggle.setChecked(false) - RECURSION INCOMING!");
         }
-        Log.d(DEBUG_TAG, "<-- Light toggle change handled");
     }
 
     /**
      * Handle sync switch changes (user interaction)
      */
     private void onSyncSwitchChanged(CompoundButton button, boolean isChecked) {
-        Log.d(DEBUG_TAG, "--> Sync switch changed to: " + isChecked);
+        EventTracer.trace(EventTracer.SYNC_CHANGED, EventTracer.flag(isChecked));
+        controlsRenderer.beginInteraction();
         try {
             // Save sync state for when flashlight turns off/on
-            lastSyncState = isChecked;
+            session.syncEnabled = isChecked;
             
             updateLayoutMode(); // This now handles all slider synchronization
-            updateSyncedIntensityLabel();
         } catch (Exception e) {
             e.printStackTrace();
             showToast("Error updating sync mode: " + e.getMessage());
         }
-        Log.d(DEBUG_TAG, "<-- Sync switch change handled");
     }
 
     /**
@@ -552,6 +621,7 @@ public class MainActivity extends AppCompatActivity {
         // D3 FIX: Set flag to prevent preference logic during multi-window transition
         isEnteringMultiWindow = true;
         Log.d(STATE_DEBUG_TAG, "🎯 BUTTON: Setting isEnteringMultiWindow = true");
+        SplitScreenMetrics.begin(!isInMultiWindowMode);
         
         toggleMultiWindowMode();
         Log.d(DEBUG_TAG, "<-- Multi-window button click handled");
@@ -563,538 +633,459 @@ public class MainActivity extends AppCompatActivity {
     
     private void initializeAllSlidersToCurrentState() {
         try {
-            // Initialize all sliders to match the screen-only slider (the visible one at startup)
-            float initialValue = screenOnlySlider != null ? screenOnlySlider.getValue() : 1.0f;
-            
-            isUpdatingSliders = true;
-            if (syncedIntensitySlider != null) {
-                syncedIntensitySlider.setValue(initialValue);
-            }
-            if (ledIntensitySlider != null) {
-                ledIntensitySlider.setValue(initialValue);
-            }
-            if (screenBrightnessSlider != null) {
-                screenBrightnessSlider.setValue(initialValue);
-            }
-            isUpdatingSliders = false;
+            // Initialize all roles to match the screen-only slider (the visible one at startup)
+            float initialValue = sliderRoles.get(SliderSync.SCREEN_ONLY);
+            setSliderValue(SliderSync.SYNCED, initialValue);
+            setSliderValue(SliderSync.LED, initialValue);
+            setSliderValue(SliderSync.SCREEN, initialValue);
             
             // Set initial screen brightness and track it
             updateColorRectangleBrightness(initialValue);
             
         } catch (Exception e) {
             e.printStackTrace();
-            isUpdatingSliders = false;
         }
     }
 
+    /**
+     * Rebind the two sliders to the roles of {@code mode} (UiSnapshot.MODE_*). Values come from
+     * sliderRoles, never from what a slider showed for its previous role.
+     */
+    private void bindSliders(int mode) {
+        boundMode = mode;
+        int primaryRole = SliderRoles.primary(mode);
+        int secondaryRole = SliderRoles.secondary(mode);
+        primaryLabel.setText(primaryRole == SliderSync.LED ? R.string.light_intensity
+                : primaryRole == SliderSync.SYNCED ? syncedLabelRes : R.string.screen_brightness);
+        primarySlider.setValue(sliderRoles.get(primaryRole));
+        boolean split = secondaryRole != SliderRoles.NONE;
+        secondaryLabel.setVisibility(split ? View.VISIBLE : View.GONE);
+        secondarySlider.setVisibility(split ? View.VISIBLE : View.GONE);
+        if (split) {
+            secondarySlider.setValue(sliderRoles.get(secondaryRole));
+        }
+    }
+
+    /** Programmatic - not slider input. Shown right away if one of the sliders plays {@code role}. */
+    private float setSliderValue(int role, float value) {
+        float stored = sliderRoles.set(role, value);
+        if (primarySlider != null && role == SliderRoles.primary(boundMode)) {
+            primarySlider.setValue(stored);
+        } else if (secondarySlider != null && role == SliderRoles.secondary(boundMode)) {
+            secondarySlider.setValue(stored);
+        }
+        return stored;
+    }
 
-    private void turnOnFlashlight() throws CameraAccessException {
-        Log.d(DEBUG_TAG, "--> Entering turnOnFlashlight()");
-        boolean torchSuccess = false;
-        
-        try {
-            // Try basic torch mode first - this is more reliable
-            Log.d(DEBUG_TAG, "+++ TORCH ON +++");
-            TorchController.setOn(cameraManager, cameraId);
-            torchSuccess = true;
-            
-            // If basic torch worked, try to apply intensity (if supported)
-            if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.TIRAMISU) {
-                try {
-                    float intensity = getCurrentActualLedIntensity();
-                    // D1 DEBUG: Log intensity restoration for debugging multi-window transitions
-                    android.util.Log.d("FlashlightApp", "D1 DEBUG: turnOnFlashlight() using intensity: " + intensity + " (from active slider)");
-                    // Use the actual device's max strength level (Samsung devices often use 1-99, not 1-100)
-                    int strengthLevel = Math.max(1, Math.min(maxTorchStrength, Math.round(intensity * maxTorchStrength)));
-                    TorchController.setStrength(cameraManager, cameraId, strengthLevel);
-                    // Track the intensity that was applied
-                    currentActualLedIntensity = intensity;
-                    // Intensity control is working - no need to show diagnostic message
-                } catch (Exception strengthException) {
-                    // Log the exact error for debugging
-                    android.util.Log.e("FlashlightApp", "Intensity control failed: " + strengthException.getClass().getSimpleName() + ": " + strengthException.getMessage(), strengthException);
-                    // Intensity control not supported - silently use basic flashlight (LED still works, screen brightness provides feedback)
+    private void onBoundSliderChanged(int role, float value, boolean fromUser) {
+        if (!fromUser || role == SliderRoles.NONE) return; // Programmatic writes go through setSliderValue()
+        sliderRoles.set(role, value);
+        sliderDispatcher.onSliderChanged(role, value);
+    }
+
+    /**
+     * Values saved by onStop() last time. Programmatic slider writes aren't slider input, so
+     * nothing is applied twice; the light itself is still started by autoStartFlashlight().
+     */
+    private void applyUiSnapshot(UiSnapshot snapshot) {
+        EventTracer.trace(EventTracer.SNAPSHOT_APPLIED, snapshot.mode, EventTracer.percent(snapshot.screenLevel));
+        setSliderValue(SliderSync.LED, snapshot.ledSlider);
+        setSliderValue(SliderSync.SCREEN, snapshot.screenSlider);
+        setSliderValue(SliderSync.SYNCED, snapshot.syncedSlider);
+        setSliderValue(SliderSync.SCREEN_ONLY, snapshot.screenOnlySlider);
+        session.syncEnabled = snapshot.syncEnabled;
+        session.ledIntensity = sliderRoles.get(snapshot.syncEnabled ? SliderSync.SYNCED : SliderSync.LED);
+        // Auto-start lights the LED (with flash) - don't draw the OFF layout in between
+        expectTorchOn = hasFlash && snapshot.torchShown();
+        screenLight.applyNow(snapshot.screenLevel);
+        session.screenBrightness = snapshot.screenLevel;
+    }
+
+    private UiSnapshot captureUiSnapshot() {
+        return new UiSnapshot(UiSnapshot.modeFor(torchState.isOn(), session.syncEnabled), session.syncEnabled,
+                sliderRoles.get(SliderSync.LED), sliderRoles.get(SliderSync.SCREEN),
+                sliderRoles.get(SliderSync.SYNCED), sliderRoles.get(SliderSync.SCREEN_ONLY), session.screenBrightness);
+    }
+
+    // The layout follows the light, or the light auto-start is about to turn on
+    private boolean isLightShown() {
+        return torchState.isOn() || expectTorchOn;
+    }
+
+    private void turnOnFlashlight() {
+        float intensity = getCurrentActualLedIntensity();
+        requestTorchOn(intensity, true);
+    }
+    
+    /**
+     * Turn on flashlight with specific intensity - used during activity recreation
+     * Bypasses getCurrentActualLedIntensity() to avoid reading unreliable slider values
+     */
+    private void turnOnFlashlightWithIntensity(float intensity) {
+        // Use the passed intensity directly, not getCurrentActualLedIntensity()
+        // NO toggle manipulation during recreation - that's what caused the listener problem
+        requestTorchOn(intensity, false);
+    }
+
+    /**
+     * Request "ON at level N" from the executor. The planner turns it into at most one HAL call
+     * (turnOnTorchWithStrengthLevel on API 33+ with strength support, setTorchMode otherwise)
+     * and sends nothing if the LED is already at that level.
+     */
+    private void requestTorchOn(float intensity, boolean syncToggle) {
+        int strengthLevel = TorchStrength.toLevel(intensity, maxTorchStrength);
+        EventTracer.trace(EventTracer.REQUEST_ON, strengthLevel);
+        int generation = ++torchRequestGeneration;
+        torchExecutor.requestOn(cameraId, strengthLevel, supportsTorchStrength(), torchStateListener, (success, error) -> {
+            if (generation != torchRequestGeneration) {
+                // Superseded (e.g. OFF tapped before this ON landed) - the newer request owns the state
+                return;
+            }
+            boolean laidOutForOn = expectTorchOn;
+            expectTorchOn = false;
+            if (!success) {
+                if (!torchState.isOn()) {
+                    torchState.markOff(); // A failed restore must not stay RESTORING
+                }
+                showToast("Flashlight error: " + (error != null ? error.getMessage() : "unknown"));
+                if (laidOutForOn) {
+                    // The snapshot's ON layout was drawn ahead of the light - take it back
+                    updateLayoutMode();
                 }
+                return; // Don't update UI if flashlight failed
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            showToast("Flashlight error: " + e.getMessage());
-            return; // Don't update UI if flashlight failed
-        }
-        
-        // Update UI only if basic flashlight succeeded
-        if (torchSuccess) {
-            isFlashlightOn = true;
-            // D3 FIX: Only update toggle if it's actually different to prevent recursive listener
-            if (!lightToggle.isChecked()) {
-                Log.d(DEBUG_TAG, "🎯 D3 FIX: Setting toggle to ON (was OFF)");
-                lightToggle.setChecked(true);
-            } else {
-                Log.d(DEBUG_TAG, "🎯 D3 FIX: Toggle already ON - skipping setChecked to prevent recursion");
+            torchState.markOn(strengthLevel);
+            // Track the intensity that was applied
+            session.ledIntensity = intensity;
+            if (syncToggle) {
+                // Not a user toggle - must not re-enter onLightToggleChanged()
+                setToggleSilently(true);
             }
             // DON'T call getCurrentScreenBrightness() here - it will read wrong slider
             // Keep current screen brightness unchanged when light turns on
             updateLayoutMode(); // Update layout based on new flashlight state
-            updateSyncedIntensityLabel(); // Update label based on new flashlight state
+        });
+    }
+
+    /**
+     * The LED is already lit (kept on across recreation/pause, or switched on outside the app):
+     * take over its state instead of re-issuing a HAL command.
+     */
+    private void adoptRunningTorch(int strengthLevel, boolean syncToggle) {
+        torchState.markOn(strengthLevel != StrengthCoalescer.NONE ? strengthLevel : torchState.getLevel());
+        if (syncToggle) {
+            setToggleSilently(true);
         }
-        Log.d(DEBUG_TAG, "<-- Exiting turnOnFlashlight()");
+        updateLayoutMode();
     }
-    
+
     /**
-     * Turn on flashlight with specific intensity - used during activity recreation
-     * Bypasses getCurrentActualLedIntensity() to avoid reading unreliable slider values
+     * Torch state change made outside this activity (main thread): Quick Settings, other apps,
+     * our tile or notification. Commands issued here pass torchStateListener as origin, so they don't arrive.
      */
-    private void turnOnFlashlightWithIntensity(float intensity) throws CameraAccessException {
-        Log.d(DEBUG_TAG, "--> Entering turnOnFlashlightWithIntensity(intensity=" + intensity + ")");
-        boolean torchSuccess = false;
-        
-        try {
-            // Try basic torch mode first - this is more reliable
-            Log.d(DEBUG_TAG, "+++ TORCH ON +++");
-            TorchController.setOn(cameraManager, cameraId);
-            torchSuccess = true;
-            
-            // If basic torch worked, apply the specific intensity (if supported)
-            if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.TIRAMISU) {
-                try {
-                    // Use the passed intensity directly, not getCurrentActualLedIntensity()
-                    android.util.Log.d("FlashlightApp", "D1 DEBUG: turnOnFlashlightWithIntensity() using intensity: " + intensity + " (from saved state)");
-                    // Use the actual device's max strength level (Samsung devices often use 1-99, not 1-100)
-                    int strengthLevel = Math.max(1, Math.min(maxTorchStrength, Math.round(intensity * maxTorchStrength)));
-                    TorchController.setStrength(cameraManager, cameraId, strengthLevel);
-                    // Track the intensity that was applied
-                    currentActualLedIntensity = intensity;
-                    // Intensity control is working - no need to show diagnostic message
-                } catch (Exception strengthException) {
-                    // Log the exact error for debugging
-                    android.util.Log.e("FlashlightApp", "Intensity control failed: " + strengthException.getClass().getSimpleName() + ": " + strengthException.getMessage(), strengthException);
-                    // Intensity control not supported - silently use basic flashlight (LED still works, screen brightness provides feedback)
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            showToast("Flashlight error: " + e.getMessage());
-            return; // Don't update UI if flashlight failed
+    private void onHardwareTorchChanged(boolean on, int strengthLevel) {
+        if (on && !torchState.isOn()) {
+            adoptRunningTorch(strengthLevel, true);
+        } else if (!on && torchState.isOn()) {
+            // Turned off outside the app (Quick Settings, camera opened by another app...)
+            torchState.markOff();
+            setToggleSilently(false);
+            updateLayoutMode();
+        } else if (on && strengthLevel != StrengthCoalescer.NONE && strengthLevel != torchState.getLevel()) {
+            // Level changed elsewhere (notification actions) - move the LED slider to match
+            torchState.updateLevel(strengthLevel);
+            setLedSliderSilently((float) strengthLevel / maxTorchStrength);
         }
-        
-        // Update internal state and essential UI - but NO toggle manipulation during recreation
-        if (torchSuccess) {
-            isFlashlightOn = true;
-            // Essential UI updates that don't trigger listeners
-            updateLayoutMode(); // Handles "link to screen" toggle visibility
-            updateSyncedIntensityLabel(); // Updates intensity labels
-            // Skip: lightToggle.setChecked() - that's what caused the listener problem
-            Log.d(DEBUG_TAG, "🎯 RECREATION: Hardware + essential UI updated, toggle sync skipped");
+    }
+
+    private void setLedSliderSilently(float intensity) {
+        boolean synced = syncSwitch != null && syncSwitch.isChecked();
+        float value = setSliderValue(synced ? SliderSync.SYNCED : SliderSync.LED, intensity);
+        session.ledIntensity = value;
+        if (synced) {
+            updateColorRectangleBrightness(value);
         }
-        Log.d(DEBUG_TAG, "<-- Exiting turnOnFlashlightWithIntensity()");
     }
 
-    private void turnOffFlashlight() throws CameraAccessException {
-        Log.d(DEBUG_TAG, "--> Entering turnOffFlashlight()");
-        try {
-            Log.d(DEBUG_TAG, "--- TORCH OFF ---");
-            TorchController.setOff(cameraManager, cameraId);
-        } catch (Exception e) {
-            // Handle cases where flashlight hardware isn't available (like emulators)
-            e.printStackTrace();
+    // TorchService's notification (with its Off action) needs this on API 33+
+    private void requestNotificationPermissionIfNeeded() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.TIRAMISU || !shouldKeepLightOnDuringPause()) return;
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.POST_NOTIFICATIONS)
+                != PackageManager.PERMISSION_GRANTED) {
+            ActivityCompat.requestPermissions(this, new String[]{Manifest.permission.POST_NOTIFICATIONS},
+                    REQUEST_NOTIFICATION_PERMISSION);
         }
+    }
+
+    /**
+     * Keep-light-on: give the lit torch to TorchService so this activity can be destroyed and
+     * reclaimed. Returns false if the system refused the hand-off (API 31+ from the background);
+     * the caller must then switch the light off rather than leave it without an off switch.
+     */
+    public boolean handOffTorchToService() {
+        if (!torchState.isOn() || TorchService.isHoldingSession()) return true;
+        return TorchService.hold(this, cameraId, maxTorchStrength, supportsTorchStrength(),
+                getCurrentActualLedIntensity());
+    }
+
+    // Reflect hardware state on the toggle without issuing a torch command from its listener
+    private void setToggleSilently(boolean checked) {
+        if (lightToggle.isChecked() == checked) return;
+        lightToggle.setOnCheckedChangeListener(null);
+        lightToggle.setChecked(checked);
+        lightToggle.setOnCheckedChangeListener(this::onLightToggleChanged);
+    }
+
+    // hasFlashIntensityControl is only ever set on API 33+, where turnOnTorchWithStrengthLevel exists
+    private boolean supportsTorchStrength() {
+        return hasFlashIntensityControl;
+    }
+
+    private void turnOffFlashlight() {
+        torchState.markOff();
+        switchTorchOff();
+    }
+
+    /**
+     * Turn the LED off but remember its level so onResume() can restore it.
+     */
+    private void suspendFlashlight() {
+        if (torchState.suspend()) {
+            switchTorchOff();
+        }
+    }
+
+    private void switchTorchOff() {
+        EventTracer.trace(EventTracer.REQUEST_OFF);
+        torchRequestGeneration++; // A pending ON result must not turn the toggle / state back on
+        expectTorchOn = false;
+        // Failures (e.g. emulators without flash hardware) are logged by the executor
+        torchExecutor.requestOff(cameraId, torchStateListener, null);
         
         // Update UI regardless of hardware success
-        isFlashlightOn = false;
-        // D3 FIX: Only update toggle if it's actually different to prevent recursive listener
-        if (lightToggle.isChecked()) {
-            Log.d(DEBUG_TAG, "🎯 D3 FIX: Setting toggle to OFF (was ON)");
-            lightToggle.setChecked(false);
-        } else {
-            Log.d(DEBUG_TAG, "🎯 D3 FIX: Toggle already OFF - skipping setChecked to prevent recursion");
-        }
+        // Not a user toggle: no second OFF, no new interaction, and a suspend stays SUSPENDED
+        setToggleSilently(false);
         // DON'T call getCurrentScreenBrightness() here - keep current screen unchanged
         updateLayoutMode(); // Update layout based on new flashlight state
-        updateSyncedIntensityLabel(); // Update label based on new flashlight state
-        Log.d(DEBUG_TAG, "<-- Exiting turnOffFlashlight()");
+    }
+
+    // Tests read the per-interaction layout pass / view write counters
+    @VisibleForTesting
+    ControlsRenderer controlsRenderer() {
+        return controlsRenderer;
     }
 
     // Exposed for ExitPolicy (read-only)
     public boolean isFlashlightCurrentlyOn() {
-        return isFlashlightOn;
+        return torchState.isOn();
     }
 
     // Exposed safe wrapper for ExitPolicy
     public void turnOffFlashlightSafely() {
-        try {
-            turnOffFlashlight();
-        } catch (android.hardware.camera2.CameraAccessException ignored) {
-        }
+        turnOffFlashlight();
     }
 
     private void updateFlashlightIntensity(float intensity) {
-        if (!isFlashlightOn) return;
+        if (!torchState.isOn()) return;
         
-        try {
-            if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.TIRAMISU) {
-                // Use device's actual max strength level (e.g., Samsung: 1-99, not 1-100)
-                int strengthLevel = Math.max(1, Math.min(maxTorchStrength, Math.round(intensity * maxTorchStrength)));
-                cameraManager.turnOnTorchWithStrengthLevel(cameraId, strengthLevel);
-            }
-            // For older devices or devices that don't support intensity, only screen changes
-            
-            // Track actual current LED intensity
-            currentActualLedIntensity = intensity;
-        } catch (Exception e) {
-            // Log slider intensity errors for debugging
-            android.util.Log.e("FlashlightApp", "Slider intensity update failed: " + e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        if (supportsTorchStrength()) {
+            // Use device's actual max strength level (e.g., Samsung: 1-99, not 1-100)
+            int strengthLevel = TorchStrength.toLevel(intensity, maxTorchStrength);
+            torchState.updateLevel(strengthLevel);
+            // Coalesced: a fast drag sends a bounded number of HAL calls and always ends on the final value
+            torchExecutor.submitStrength(cameraId, strengthLevel, torchStateListener);
         }
+        // For older devices or devices that don't support intensity, only screen changes
+        
+        // Track actual current LED intensity
+        session.ledIntensity = intensity;
     }
 
     private void updateColorRectangleBrightness(float intensity) {
         try {
-            // Always use full brightness scale - screen brightness should match slider position consistently
-            int brightness = (int)(255 * intensity);
-            int color = Color.rgb(brightness, brightness, brightness);
-            colorRectangle.setBackgroundColor(color);
+            // Backlight carries the level, colorRectangle only dims below the backlight floor
+            screenLight.setIntensity(intensity);
             
             // Track actual current screen brightness
-            currentActualScreenBrightness = intensity;
+            session.screenBrightness = intensity;
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Bring the controls in line with the light and sync state. The renderer only touches what
+     * changed since the last call, so callers don't need to check whether anything did.
+     */
     private void updateLayoutMode() {
-        Log.d(DEBUG_TAG, "--> Entering updateLayoutMode()");
+        if (syncSwitch == null) return; // Before initializeViews()
+        // PHASE 1: TEMPORARILY DISABLED - devices without intensity control would always render
+        // MODE_SCREEN_ONLY with the sync controls hidden (see configureUIBasedOnHardware())
         try {
-            if (syncSwitch != null && syncModeContainer != null && independentModeContainer != null && screenOnlyModeContainer != null) {
-                boolean isFlashlightOn = this.isFlashlightOn;
-                // D1 FIX: Use actual visual brightness state instead of reading from sliders during transitions
-                // This prevents the "two memories" issue where sliders override each other
-                float currentBrightness = currentActualScreenBrightness;
-                android.util.Log.d("BrightnessSync", "D1: Mode transition using visual brightness: " + currentBrightness + 
-                    " (light=" + isFlashlightOn + ")");
-                
-                // PHASE 1: TEMPORARILY DISABLED - For devices without intensity control, always use simple mode
-                // TODO: Re-enable after testing that hardware detection works correctly
-                if (false && !hasFlashIntensityControl) {
-                    // Simple mode: Just light on/off + screen brightness
-                    syncModeContainer.setVisibility(View.GONE);
-                    independentModeContainer.setVisibility(View.GONE);
-                    screenOnlyModeContainer.setVisibility(View.VISIBLE);
-                    
-                    // Hide sync controls
-                    syncSwitch.setVisibility(View.GONE);
-                    syncLabel.setVisibility(View.GONE);
-                    
-                    // Update screen-only slider
-                    // D2 FIX: Don't override slider values during mode transitions
-                    // screenOnlySlider retains its natural value - no need to force it
-                    
-                    android.util.Log.d("FlashlightHardware", "📱 Simple layout mode: Light ON/OFF + Screen only");
-                    return; // Skip complex sync logic
-                }
-                
-                if (isFlashlightOn) {
-                    // FLASHLIGHT ON: Show sync button + restore last sync state
-                    syncSwitch.setVisibility(View.VISIBLE);
-                    syncLabel.setVisibility(View.VISIBLE); // Show sync label too
-                    
-                    // Restore last sync state
-                    syncSwitch.setChecked(lastSyncState);
-                    boolean isSyncMode = lastSyncState;
-                
-                if (isSyncMode) {
-                        // SYNC MODE: Single full-width slider controlling both
-                        // D2 FIX: Don't override slider values during mode transitions 
-                        // syncedIntensitySlider retains its natural value
-                        
-                    syncModeContainer.setVisibility(View.VISIBLE);
-                    independentModeContainer.setVisibility(View.GONE);
-                    screenOnlyModeContainer.setVisibility(View.GONE);
-                        
-                        syncModeContainer.post(() -> {
-                            // D2 FIX: Use actual slider state instead of cached value
-                            updateColorRectangleBrightness(getCurrentActualScreenBrightness());
-                            // D3 FIX: Remove intensity update - light is already on with correct intensity
-                            // updateFlashlightIntensity() during transitions causes unnecessary flash
-                        });
-                        
-                    } else {
-                        // INDEPENDENT MODE: Dual sliders (LED + Screen separate)  
-                        // D2 FIX: Don't override screen slider value during mode transitions
-                        // screenBrightnessSlider retains its natural value
-                        isUpdatingSliders = true;
-                        if (ledIntensitySlider != null) {
-                            // D1 FIX: Preserve current slider value instead of overwriting with cached value
-                            // Only set if the slider has no valid value yet
-                            if (ledIntensitySlider.getValue() <= 0f) {
-                                ledIntensitySlider.setValue(Math.max(0.1f, currentActualLedIntensity));
-                            }
-                        }
-                        isUpdatingSliders = false;
-                        
-                    syncModeContainer.setVisibility(View.GONE);
-                    independentModeContainer.setVisibility(View.VISIBLE);
-                    screenOnlyModeContainer.setVisibility(View.GONE);
-                        
-                        independentModeContainer.post(() -> {
-                            // D2 FIX: Use actual slider state instead of cached value
-                            updateColorRectangleBrightness(getCurrentActualScreenBrightness());
-                            // D3 FIX: Remove intensity update - light is already on with correct intensity
-                            // updateFlashlightIntensity() during transitions causes unnecessary flash
-                        });
-                    }
-                    
-                } else {
-                    // FLASHLIGHT OFF: Hide sync button completely, show single screen slider
-                    syncSwitch.setVisibility(View.GONE);
-                    syncLabel.setVisibility(View.GONE); // Hide sync label too
-                    
-                    // SCREEN ONLY MODE: Just screen brightness control
-                    // D2 FIX: Don't override slider values during mode transitions
-                    // screenOnlySlider retains its natural value
-                    
-                    syncModeContainer.setVisibility(View.GONE);
-                    independentModeContainer.setVisibility(View.GONE);
-                    screenOnlyModeContainer.setVisibility(View.VISIBLE);
-                    
-                    screenOnlyModeContainer.post(() -> {
-                        // D2 FIX: Use actual slider state instead of cached value
-                        updateColorRectangleBrightness(getCurrentActualScreenBrightness());
-                    });
-                }
-            }
+            controlsRenderer.render(isLightShown(), session.syncEnabled);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-
-
-
-
-    // SINGLE SOURCE OF TRUTH - always return the actual LED intensity from active slider
+    // SINGLE SOURCE OF TRUTH - always return the actual LED intensity of the active slider role
     private float getCurrentActualLedIntensity() {
-        try {
-            // DEBUG: Check slider state during activity recreation
-            android.util.Log.d("FlashlightApp", "🔍 INTENSITY DEBUG: ledIntensitySlider=" + (ledIntensitySlider != null ? "EXISTS" : "NULL"));
-            if (ledIntensitySlider != null) {
-                android.util.Log.d("FlashlightApp", "🔍 INTENSITY DEBUG: slider.getValue()=" + ledIntensitySlider.getValue());
-                android.util.Log.d("FlashlightApp", "🔍 INTENSITY DEBUG: currentActualLedIntensity=" + currentActualLedIntensity);
-            }
-            android.util.Log.d("FlashlightApp", "🔍 INTENSITY DEBUG: syncSwitch=" + (syncSwitch != null ? "EXISTS" : "NULL"));
-            if (syncSwitch != null) {
-                android.util.Log.d("FlashlightApp", "🔍 INTENSITY DEBUG: syncSwitch.isChecked()=" + syncSwitch.isChecked());
-            }
-            
-            // TARGETED FIX: Read from whichever slider is currently active and visible to user
-            if (syncSwitch != null && syncSwitch.isChecked() && syncedIntensitySlider != null) {
-                // Sync mode: single slider controls both LED and screen
-                float value = syncedIntensitySlider.getValue();
-                android.util.Log.d("FlashlightApp", "LED intensity from SYNC slider: " + value);
-                return value;
-            } else if (ledIntensitySlider != null) {
-                // Independent mode: separate LED slider (remove isFlashlightOn check - slider always has value)
-                float value = ledIntensitySlider.getValue();
-                android.util.Log.d("FlashlightApp", "LED intensity from LED slider: " + value);
-                return value;
-            } else {
-                // Fallback to cached value for edge cases
-                android.util.Log.d("FlashlightApp", "LED intensity from CACHED value: " + currentActualLedIntensity);
-                return currentActualLedIntensity;
-            }
-        } catch (Exception e) {
-            android.util.Log.e("FlashlightApp", "Error reading LED intensity from sliders", e);
-            return currentActualLedIntensity; // Safe fallback
-        }
+        // Sync mode: single slider controls both LED and screen; otherwise the LED role
+        // (no isFlashlightOn check - the role always has a value)
+        boolean synced = syncSwitch != null && syncSwitch.isChecked();
+        return sliderRoles.get(synced ? SliderSync.SYNCED : SliderSync.LED);
     }
 
-    // SINGLE SOURCE OF TRUTH - always return the actual displayed screen brightness from active slider  
+    // SINGLE SOURCE OF TRUTH - always return the actual displayed screen brightness of the active slider role
     private float getCurrentActualScreenBrightness() {
-        try {
-            // D1 FIX: Read from whichever slider is currently active and visible to user
-            if (syncSwitch != null && syncSwitch.isChecked() && syncedIntensitySlider != null) {
-                // Sync mode: single slider controls both LED and screen
-                return syncedIntensitySlider.getValue();
-            } else if (isFlashlightOn && screenBrightnessSlider != null) {
-                // Independent mode: separate screen slider
-                return screenBrightnessSlider.getValue();
-            } else if (screenOnlySlider != null) {
-                // Screen-only mode: single screen slider
-                return screenOnlySlider.getValue();
-            } else {
-                // Fallback to cached value for edge cases
-                return currentActualScreenBrightness;
-            }
-        } catch (Exception e) {
-            android.util.Log.e("FlashlightApp", "Error reading screen brightness from sliders", e);
-            return currentActualScreenBrightness; // Safe fallback
+        if (syncSwitch != null && syncSwitch.isChecked()) {
+            // Sync mode: single slider controls both LED and screen
+            return sliderRoles.get(SliderSync.SYNCED);
         }
+        // D1 FIX: Independent mode has its own screen role, screen-only mode another one
+        return sliderRoles.get(isLightShown() ? SliderSync.SCREEN : SliderSync.SCREEN_ONLY);
     }
 
    
  
-    private void updateSyncedIntensityLabel() {
-        try {
-            if (syncedIntensityLabel != null && syncSwitch != null) {
-                if (syncSwitch.isChecked()) {
-                    if (isFlashlightOn) {
-                        syncedIntensityLabel.setText(getString(R.string.intensity));
-                    } else {
-                        syncedIntensityLabel.setText(getString(R.string.screen_brightness));
-                    }
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
     private void showToast(String message) {
         Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
     }
 
+    /**
+     * adb shell dumpsys activity com.walklight.safety - prints time-to-light and the recent torch / lifecycle events.
+     */
+    @Override
+    public void dump(@NonNull String prefix, @Nullable FileDescriptor fd, @NonNull PrintWriter writer,
+                     @Nullable String[] args) {
+        super.dump(prefix, fd, writer, args);
+        writer.println(prefix + "Torch state: " + torchState.getState() + " level=" + torchState.getLevel());
+        writer.println(prefix + "Controls: mode=" + controlsRenderer.mode() + " layoutPasses="
+                + controlsRenderer.layoutPasses() + " viewWrites=" + controlsRenderer.viewWrites()
+                + " (last interaction)");
+        long timeToLightMs = StartupMetrics.getTimeToLightMs();
+        writer.println(prefix + "Time-to-light: " + (timeToLightMs == StartupMetrics.NOT_RECORDED
+                ? "not recorded" : timeToLightMs + "ms from process start"));
+        EventTracer.dump(prefix, writer);
+        SplitScreenMetrics.dump(prefix, writer);
+    }
+
+    @Override
+    protected void onRestoreInstanceState(@NonNull Bundle savedInstanceState) {
+        super.onRestoreInstanceState(savedInstanceState);
+        // Restored sync state isn't slider input - apply the active role's level to the screen light
+        updateColorRectangleBrightness(getCurrentActualScreenBrightness());
+    }
+
     @Override
     protected void onSaveInstanceState(Bundle outState) {
         super.onSaveInstanceState(outState);
         // D3 FIX: Save flashlight state for activity recreation only
-        outState.putBoolean("flashlight_was_on", isFlashlightOn);
+        outState.putBoolean("flashlight_was_on", torchState.isOn());
         outState.putFloat("led_intensity", getCurrentActualLedIntensity());
-        Log.d(STATE_DEBUG_TAG, "🎯 SAVING: flashlight_was_on = " + isFlashlightOn + ", led_intensity = " + getCurrentActualLedIntensity());
+        // Sliders have saveEnabled=false - their role values are kept here for process death
+        outState.putFloatArray("slider_values", sliderRoles.toArray());
     }
 
     @Override
     protected void onDestroy() {
-        Log.d(DEBUG_TAG, "STATE --> enter onDestroy()");
+        EventTracer.trace(EventTracer.ON_DESTROY, EventTracer.flag(isChangingConfigurations()));
         super.onDestroy();
+        torchExecutor.removeTorchStateListener(torchStateListener);
+        splitScreen.cancel();
+        sliderDispatcher.cancel();
+        screenLight.release();
         
-        if (isFlashlightOn) {
+        if (torchState.isOn()) {
             // D3 FIX: Only turn off light if app is actually exiting (not just rotating/multi-window)
-            if (isChangingConfigurations()) {
-                Log.d(DEBUG_TAG, "🎯 D3 FIX: Activity recreating - KEEPING light ON");
-            } else {
-                Log.d(DEBUG_TAG, "🎯 D3 FIX: App actually exiting - turning light OFF");
-                Log.d(STATE_DEBUG_TAG, "🎯 REAL EXIT: state will be cleared");
-                try {
-                    turnOffFlashlight();
-                } catch (CameraAccessException e) {
-                    e.printStackTrace();
-                }
+            // and the light wasn't handed to TorchService
+            if (!isChangingConfigurations() && !TorchService.isHoldingSession()) {
+                turnOffFlashlight();
             }
         }
-        
-        Log.d(DEBUG_TAG, "STATE <-- exit onDestroy()");
     }
 
     @Override
     protected void onStop() {
-        Log.d(DEBUG_TAG, "STATE --> enter onStop()");
-        Log.d(DEBUG_TAG, "🔍 WHO CALLED ME? onStop");
-        StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-        Log.d(DEBUG_TAG, "🔍 CALLER: " + stackTrace[3].toString());
+        EventTracer.trace(EventTracer.ON_STOP);
+        SplitScreenMetrics.mark(SplitScreenMetrics.STOP);
         super.onStop();
-        
-        // D3 FIX: Only apply "close preference" logic for real pause, not activity recreation
-        if (isChangingConfigurations() || isEnteringMultiWindow) {
-            Log.d(STATE_DEBUG_TAG, "🎯 STOP FIX: Activity recreation OR multi-window - IGNORING close preference");
-            Log.d(STATE_DEBUG_TAG, "🎯 STOP FIX: isChangingConfigurations=" + isChangingConfigurations() + ", isEnteringMultiWindow=" + isEnteringMultiWindow);
-            // Save current flashlight state for consistency
-            wasFlashlightOnBeforePause = isFlashlightOn;
-            Log.d(DEBUG_TAG, "STATE <-- exit onStop()");
-            return; // Skip all preference logic - let state restoration handle it
+        // The next fresh launch draws its first frame from this (written off the main thread)
+        UiStateStore.save(this, captureUiSnapshot());
+        if (hasFlash) {
+            // Torch-first start uses this on the next cold launch, the "Light N%" shortcut too
+            float intensity = getCurrentActualLedIntensity();
+            TorchStartup.saveIntensity(this, intensity);
+            TorchActions.publishLastLevelShortcut(this, intensity);
         }
         
-        Log.d(STATE_DEBUG_TAG, "🎯 STOP FIX: Real stop - applying close preference");
-        
-        // PHASE 2.2: Apply consistent behavior logic - keep light on for ALL pause scenarios
-        boolean shouldKeepOn = shouldKeepLightOnDuringPause();
-        String reason = getPauseDecisionReason();
+        LightPolicy.StopAction action = stopAction();
+        EventTracer.trace(EventTracer.STOP_DECISION, action.ordinal(), torchState.getState().ordinal());
         
-        android.util.Log.d("FlashlightLifecycle", "=== onStop() PHASE 2.2: CONSISTENT BEHAVIOR ===");
-        android.util.Log.d("FlashlightLifecycle", "Multi-window mode: " + isInMultiWindowMode());
-        android.util.Log.d("FlashlightLifecycle", "Picture-in-Picture: " + isInPictureInPictureMode());  
-        android.util.Log.d("FlashlightLifecycle", "Has window focus: " + hasWindowFocus());
-        android.util.Log.d("FlashlightLifecycle", "Current light state: " + isFlashlightOn);
-        android.util.Log.d("FlashlightLifecycle", "Decision reason: " + reason);
-        android.util.Log.d("FlashlightLifecycle", "🎯 CONSISTENT DECISION: " + (shouldKeepOn ? "KEEP ON" : "TURN OFF"));
-        
-        // Save current flashlight state
-        wasFlashlightOnBeforePause = isFlashlightOn;
-        
-        // PHASE 2.2: Apply consistent behavior logic to actual behavior
-        if (isFlashlightOn) {
-            if (shouldKeepOn) {
-                // CONSISTENT BEHAVIOR: Keep light on for ALL pause scenarios  
-                android.util.Log.d("FlashlightLifecycle", "🌟 Light KEPT ON (consistent behavior)");
-                android.util.Log.d("FlashlightLifecycle", "💡 Reason: " + reason);
-            } else {
-                // FALLBACK: Only turn off light in exceptional cases (should not happen with consistent behavior)
-            try {
-                turnOffFlashlight();
-                    android.util.Log.d("FlashlightLifecycle", "⚠️ Light turned OFF (fallback - should not happen)");
-            } catch (CameraAccessException e) {
-                    android.util.Log.e("FlashlightLifecycle", "❌ Error turning off light", e);
-                e.printStackTrace();
+        // PHASE 2.2: KEEP_ON is the consistent behavior for all pause scenarios
+        if (action == LightPolicy.StopAction.KEEP_ON) {
+            // Normally already handed off in onPause(); this covers a light turned on since
+            if (!handOffTorchToService()) {
+                // Refused in the background - nothing would be left to switch it off; onResume() restores it
+                suspendFlashlight();
             }
+        } else if (action == LightPolicy.StopAction.SUSPEND) {
+            // SUSPENDED remembers the level so onResume() restores it
+            suspendFlashlight();
         }
-        }
-        
-        android.util.Log.d("FlashlightLifecycle", "=========================");
-        Log.d(DEBUG_TAG, "STATE <-- exit onStop()");
     }
 
     @Override
     protected void onPause() {
-        Log.d(DEBUG_TAG, "STATE --> enter onPause()");
+        EventTracer.trace(EventTracer.ON_PAUSE);
+        SplitScreenMetrics.mark(SplitScreenMetrics.PAUSE);
         super.onPause();
-        Log.d(DEBUG_TAG, "STATE <-- exit onPause()");
+        // Hand off while still visible: from API 31 a stopped activity may not start a foreground
+        // service. A pause that doesn't end in onStop() takes the torch back in onResume().
+        if (stopAction() == LightPolicy.StopAction.KEEP_ON) {
+            handOffTorchToService();
+        }
+    }
+
+    // D3 FIX: Only apply "close preference" logic for real pause, not activity recreation
+    // (IGNORE skips all preference logic - state restoration handles it)
+    private LightPolicy.StopAction stopAction() {
+        return LightPolicy.onStop(isChangingConfigurations(), isEnteringMultiWindow,
+                torchState.isOn(), shouldKeepLightOnDuringPause());
     }
 
     @Override
     protected void onResume() {
-        Log.d(DEBUG_TAG, "STATE --> enter onResume()");
+        EventTracer.trace(EventTracer.ON_RESUME);
+        SplitScreenMetrics.mark(SplitScreenMetrics.RESUME);
         super.onResume();
         
-        android.util.Log.d("FlashlightLifecycle", "=== onResume() Analysis ===");
-        android.util.Log.d("FlashlightLifecycle", "Was light on before pause: " + wasFlashlightOnBeforePause);
-        android.util.Log.d("FlashlightLifecycle", "Current light state: " + isFlashlightOn);
-        android.util.Log.d("FlashlightLifecycle", "Multi-window mode: " + isInMultiWindowMode());
-        android.util.Log.d("FlashlightLifecycle", "Has window focus: " + hasWindowFocus());
-        
         // D3 FIX: Reset multi-window flag when returning to active state
-        if (isEnteringMultiWindow) {
-            Log.d(STATE_DEBUG_TAG, "🎯 ONRESUME: Resetting isEnteringMultiWindow = false");
-            isEnteringMultiWindow = false;
+        isEnteringMultiWindow = false;
+        
+        // Take the torch back from TorchService; its notification actions may have changed it
+        TorchService.release(this);
+        if (torchExecutor.isTorchStateKnown()) {
+            onHardwareTorchChanged(torchExecutor.isTorchOn(), torchExecutor.getTorchLevel());
         }
         
         // PHASE 2.1: Smart restore logic (with multi-window transition handling)
-        if (wasFlashlightOnBeforePause && hasFlash) {
-            if (isFlashlightOn) {
-                // Light is already on - either kept on during pause OR restored by onMultiWindowModeChanged()
-                if (isInMultiWindowMode()) {
-                    android.util.Log.d("FlashlightLifecycle", "🌟 Light restored by multi-window transition");
-                } else {
-                    android.util.Log.d("FlashlightLifecycle", "🌟 Light was KEPT ON during pause (smart behavior)");
-                }
-                android.util.Log.d("FlashlightLifecycle", "➡️ No restore needed - light is already on");
-            } else {
-                // Light is still off - restore it (for non-multi-window scenarios)
-                if (!isInMultiWindowMode()) {
-                    try {
-                        turnOnFlashlight();
-                        android.util.Log.d("FlashlightLifecycle", "✅ Light restored (normal resume)");
-                    } catch (CameraAccessException e) {
-                        android.util.Log.e("FlashlightLifecycle", "❌ Error restoring light", e);
-                        e.printStackTrace();
-                    }
-                } else {
-                    android.util.Log.d("FlashlightLifecycle", "➡️ Multi-window mode - light should have been restored already");
-                }
+        boolean restoring = false;
+        if (torchState.isOn()) {
+            // Light is already on - kept on during pause (or never left during a multi-window transition)
+        } else if (torchState.needsRestore() && hasFlash) {
+            // Light was suspended in onStop() - restore it (for non-multi-window scenarios)
+            if (torchExecutor.isTorchOn()) {
+                // Hardware reports the LED never went off - skip the redundant restore
+                adoptRunningTorch(torchExecutor.getTorchLevel(), true);
+            } else if (!isInMultiWindowMode()) {
+                torchState.beginRestore();
+                turnOnFlashlight();
+                restoring = true;
             }
-        } else {
-            String reason = !wasFlashlightOnBeforePause ? "wasn't on before" : "no flash capability";
-            android.util.Log.d("FlashlightLifecycle", "➡️ Not restoring light: " + reason);
+            // Multi-window mode - light should have been restored already
         }
-        
-        android.util.Log.d("FlashlightLifecycle", "==========================");
-        Log.d(DEBUG_TAG, "STATE <-- exit onResume()");
+        EventTracer.trace(EventTracer.RESUME_DECISION, torchState.getState().ordinal(), EventTracer.flag(restoring));
     }
 
     // ================================
@@ -1114,51 +1105,9 @@ public class MainActivity extends AppCompatActivity {
      * @return true if light should stay on, false if it should turn off
      */
     private boolean shouldKeepLightOnDuringPause() {
-        try {
-            // B2.2: Read preference to determine close behavior
-            // This respects user's "Keep flashlight on when closed" setting
-            SharedPreferences prefs = getSharedPreferences("walklight_settings", MODE_PRIVATE);
-            boolean keepLightOn = prefs.getBoolean("keep_light_on_close", true);
-            
-            android.util.Log.d("FlashlightLifecycle", "🔄 B2.2: Reading user preference for close behavior");
-            android.util.Log.d("FlashlightLifecycle", "Keep light on when closed: " + keepLightOn);
-            android.util.Log.d("FlashlightLifecycle", "🎯 DECISION: " + (keepLightOn ? "KEEP ON" : "TURN OFF"));
-            
-            return keepLightOn; // Respect user preference
-            
-            // Note: We still have the multi-window callback as a safety net
-            // and onDestroy() will turn off light when app is actually closed
-            
-        } catch (Exception e) {
-            android.util.Log.e("FlashlightLifecycle", "Error reading preference", e);
-            // Fallback to XML default - keep light on
-            return true;
-        }
-    }
-    
-    /**
-     * PHASE 2.2: Get human-readable reason for pause decision (for logging)
-     */
-    private String getPauseDecisionReason() {
-        try {
-            if (isInMultiWindowMode()) {
-                return "Multi-window mode (split-screen) - consistent behavior";
-            }
-            
-            if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.N 
-                && isInPictureInPictureMode()) {
-                return "Picture-in-Picture mode - consistent behavior";
-            }
-            
-            if (hasWindowFocus()) {
-                return "Still has window focus - consistent behavior";
-            }
-            
-            return "Home button/app switcher - consistent behavior (keep light on)";
-            
-        } catch (Exception e) {
-            return "Error detecting state: " + e.getMessage();
-        }
+        // B2.2: Respect user's "Keep flashlight on when closed" setting (in-memory snapshot, no I/O)
+        // Note: onDestroy() will turn off light when app is actually closed
+        return SettingsStore.get(this).keepLightOnClose;
     }
 
     // ================================
@@ -1171,40 +1120,31 @@ public class MainActivity extends AppCompatActivity {
      */
     @Override
     public void onMultiWindowModeChanged(boolean isInMultiWindowMode) {
-        Log.d(DEBUG_TAG, "--> Entering onMultiWindowModeChanged(isInMultiWindowMode=" + isInMultiWindowMode + ")");
+        EventTracer.trace(EventTracer.MULTI_WINDOW_CHANGED, EventTracer.flag(isInMultiWindowMode));
+        SplitScreenMetrics.mark(isInMultiWindowMode ? SplitScreenMetrics.MULTI_WINDOW_ON : SplitScreenMetrics.MULTI_WINDOW_OFF);
         super.onMultiWindowModeChanged(isInMultiWindowMode);
         
-        android.util.Log.d("FlashlightLifecycle", "=== onMultiWindowModeChanged() ===");
-        android.util.Log.d("FlashlightLifecycle", "New multi-window mode: " + isInMultiWindowMode);
-        android.util.Log.d("FlashlightLifecycle", "Current light state: " + isFlashlightOn);
-        
-        // D3 FIX: Block unnecessary flashlight restoration logic
-        // This was causing the flash during mode transitions - light should stay as-is
-        /*
-        // FLASHLIGHT RESTORATION LOGIC - DISABLED
-        // If entering multi-window mode and light was turned off during transition, restore it!
-        if (isInMultiWindowMode && wasFlashlightOnBeforePause && !isFlashlightOn) {
-            android.util.Log.d("FlashlightLifecycle", "🌟 ENTERING MULTI-WINDOW: Restoring light!");
-            try {
-                turnOnFlashlight();
-                android.util.Log.d("FlashlightLifecycle", "✅ Light restored for multi-window mode");
-            } catch (CameraAccessException e) {
-                android.util.Log.e("FlashlightLifecycle", "❌ Error restoring light in multi-window", e);
-                e.printStackTrace();
-            }
-        }
-        */
-        android.util.Log.d("FlashlightLifecycle", "D3: Skipping flashlight restoration - letting light maintain natural state");
+        // D3 FIX: No flashlight restoration here - it caused a flash during mode transitions.
+        // The light keeps its natural state.
         
         // MULTI-WINDOW BUTTON UPDATE LOGIC
         // Update button icon when mode changes
-        runOnUiThread(() -> {
-            updateMultiWindowButtonIcon();
-            Log.d(TAG, "Multi-window button updated for mode: " + (isInMultiWindowMode ? "SPLIT-SCREEN" : "FULLSCREEN"));
-        });
-        
-        android.util.Log.d("FlashlightLifecycle", "=====================================");
-        Log.d(DEBUG_TAG, "<-- Exiting onMultiWindowModeChanged()");
+        runOnUiThread(this::updateMultiWindowButtonIcon);
+        splitScreen.onMultiWindowModeChanged(isInMultiWindowMode);
+    }
+
+    @Override
+    public void onTopResumedActivityChanged(boolean isTopResumedActivity) {
+        super.onTopResumedActivityChanged(isTopResumedActivity);
+        splitScreen.onTopResumedActivityChanged(isTopResumedActivity);
+    }
+
+    @Override
+    public void onWindowFocusChanged(boolean hasFocus) {
+        super.onWindowFocusChanged(hasFocus);
+        // Give the backlight back to the system while another window has focus
+        screenLight.onWindowFocusChanged(hasFocus);
+        splitScreen.onWindowFocusChanged(hasFocus);
     }
 
     // ================================
@@ -1217,7 +1157,7 @@ public class MainActivity extends AppCompatActivity {
      */
     private void exitApp() {
         android.util.Log.d("FlashlightApp", "🚪 User requested app exit");
-        new ExitPolicy().onExitRequested(this);
+        new ExitPolicy().onExitRequested(this, SettingsStore.get(this));
     }
 
     private void showAboutDialog() {
@@ -1246,12 +1186,10 @@ public class MainActivity extends AppCompatActivity {
             // Currently in split-screen → show fullscreen icon (to exit)
             multiWindowButton.setImageResource(R.drawable.full_screen);
             multiWindowButton.setContentDescription("Exit Split-Screen");
-            Log.d(TAG, "Button updated: Showing fullscreen icon (currently in split-screen)");
         } else {
             // Currently fullscreen → show split-screen icon (to enter)
             multiWindowButton.setImageResource(R.drawable.split_vertical_line3);
             multiWindowButton.setContentDescription("Enter Split-Screen");
-            Log.d(TAG, "Button updated: Showing split-screen icon (currently fullscreen)");
         }
     }
     
@@ -1266,9 +1204,8 @@ public class MainActivity extends AppCompatActivity {
     }
     
     private void enterSplitScreenMode() {
-        SplitScreenController split = new SplitScreenController(this);
         boolean isInMultiWindow = isInMultiWindowMode();
-        split.enterSplitScreen(isInMultiWindow, () -> {});
+        splitScreen.enterSplitScreen(isInMultiWindow, this::updateMultiWindowButtonIcon);
     }
     
     private void exitSplitScreenMode() {
@@ -1276,12 +1213,11 @@ public class MainActivity extends AppCompatActivity {
             showUserFeedback("Already in fullscreen mode");
             return;
         }
-        SplitScreenController split = new SplitScreenController(this);
-        split.exitSplitScreen(() -> moveTaskToBack(true), () -> {
+        splitScreen.exitSplitScreen(() -> moveTaskToBack(true), () -> {
             Intent bringBackIntent = new Intent(this, MainActivity.class);
             bringBackIntent.addFlags(Intent.FLAG_ACTIVITY_REORDER_TO_FRONT);
             startActivity(bringBackIntent);
-        });
+        }, this::updateMultiWindowButtonIcon);
     }
     
     // ================================
@@ -1298,7 +1234,7 @@ public class MainActivity extends AppCompatActivity {
      * Now uses stored companion app instead of hardcoded Spotify!
      */
     private void launchMusicAppInSplitScreen() {
-        new SplitScreenController(this).launchCompanionAppInSplitScreen();
+        splitScreen.launchCompanionAppInSplitScreen();
     }
     
     /**
@@ -1309,7 +1245,7 @@ public class MainActivity extends AppCompatActivity {
     @Deprecated
     private void launchSpotifyInSplitScreen() {
         // Delegate to new companion app method
-        new SplitScreenController(this).launchCompanionAppInSplitScreen();
+        splitScreen.launchCompanionAppInSplitScreen();
     }
     
     /**
@@ -1320,16 +1256,15 @@ public class MainActivity extends AppCompatActivity {
      */
     private void launchCompanionAppNormally() {
         // Read stored companion app data
-        android.content.SharedPreferences prefs = getSharedPreferences("walklight_settings", MODE_PRIVATE);
-        String companionPackage = prefs.getString("companion_app_package", null);
-        String companionClass = prefs.getString("companion_app_class", null);
-        String companionName = prefs.getString("companion_app_name", "Spotify");
+        SettingsSnapshot settings = SettingsStore.get(this);
+        String companionName = settings.companionName != null ? settings.companionName : "Spotify";
 
-        if (companionPackage != null && companionClass != null) {
+        if (settings.hasCompanionApp() && LaunchableAppIndex.get(this)
+                .isLaunchable(settings.companionPackage, settings.companionClass)) {
             try {
                 // Launch stored companion app normally
                 Intent companionIntent = new Intent();
-                companionIntent.setClassName(companionPackage, companionClass);
+                companionIntent.setClassName(settings.companionPackage, settings.companionClass);
                 startActivity(companionIntent);
                 Log.d(TAG, companionName + " launched normally");
                 return;
@@ -1348,6 +1283,11 @@ public class MainActivity extends AppCompatActivity {
      */
     @Deprecated
     private void launchSpotifyNormallyFallback() {
+        if (!LaunchableAppIndex.get(this).hasLauncher(SplitScreenController.SPOTIFY_PACKAGE)) {
+            startActivity(new Intent(Intent.ACTION_VIEW, Uri.parse("https://open.spotify.com")));
+            Log.d(TAG, "Spotify not installed, web opened as fallback");
+            return;
+        }
         try {
             // Standard launch without split-screen flags
             Intent spotifyIntent = new Intent(Intent.ACTION_VIEW, Uri.parse("spotify:"));
@@ -0,0 +1,101 @@
+package com.walklight.safety;
+
+import android.graphics.Color;
+import android.view.Choreographer;
+import android.view.View;
+import android.view.Window;
+import android.view.WindowManager;
+
+/**
+ * Screen light: drives the window backlight (LayoutParams.screenBrightness) together with the
+ * light surface's color, split by ScreenLightMix so each level uses the least display power.
+ * Level changes are batched to at most one window-attribute update per frame. While the window
+ * doesn't have focus the system brightness is restored and the level goes back into the pixels.
+ */
+public final class ScreenLightEngine implements Choreographer.FrameCallback {
+    private final Window window;
+    private final View surface;
+    private final boolean driveBacklight;
+    private final float minBacklight;
+
+    private float intensity = 1.0f;
+    private boolean hasFocus;
+    private boolean frameScheduled;
+    // Last values handed to the window / view, so unchanged frames cost nothing
+    private float appliedBacklight = Float.NaN;
+    private int appliedGray = -1;
+
+    public ScreenLightEngine(Window window, View surface) {
+        this.window = window;
+        this.surface = surface;
+        this.driveBacklight = surface.getResources().getBoolean(R.bool.screen_light_drive_backlight);
+        this.minBacklight = surface.getResources().getInteger(R.integer.screen_light_min_backlight_percent) / 100f;
+        this.hasFocus = window.getDecorView().hasWindowFocus();
+    }
+
+    /** Slider path: applied on the next frame, coalescing everything set before it. */
+    public void setIntensity(float intensity) {
+        this.intensity = intensity;
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /** Caller is already frame-aligned (or needs the level now): apply without waiting. */
+    public void applyNow(float intensity) {
+        this.intensity = intensity;
+        cancelFrame();
+        apply();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        apply();
+    }
+
+    /** Focus lost: hand the backlight back to the system right away; regained: take it again. */
+    public void onWindowFocusChanged(boolean hasFocus) {
+        this.hasFocus = hasFocus;
+        cancelFrame();
+        apply();
+    }
+
+    /** Activity going away: drop a pending frame and the brightness override. */
+    public void release() {
+        hasFocus = false;
+        cancelFrame();
+        apply();
+    }
+
+    private void cancelFrame() {
+        if (frameScheduled) {
+            frameScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    private void apply() {
+        float backlight;
+        int gray;
+        if (driveBacklight && hasFocus) {
+            backlight = ScreenLightMix.backlight(intensity, minBacklight);
+            gray = ScreenLightMix.pixelGray(intensity, minBacklight);
+        } else {
+            backlight = WindowManager.LayoutParams.BRIGHTNESS_OVERRIDE_NONE;
+            gray = ScreenLightMix.pixelGrayAtSystemBacklight(intensity);
+        }
+
+        if (backlight != appliedBacklight) {
+            WindowManager.LayoutParams params = window.getAttributes();
+            params.screenBrightness = backlight;
+            window.setAttributes(params);
+            appliedBacklight = backlight;
+        }
+        if (gray != appliedGray) {
+            surface.setBackgroundColor(Color.rgb(gray, gray, gray));
+            appliedGray = gray;
+        }
+    }
+}
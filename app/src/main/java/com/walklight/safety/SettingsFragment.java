@@ -8,6 +8,7 @@ import android.content.pm.ApplicationInfo;
 import android.content.pm.ActivityInfo;
 import android.content.pm.ResolveInfo;
 import android.content.Intent;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.net.Uri;
 import java.util.List;
@@ -37,7 +38,7 @@ public class SettingsFragment extends PreferenceFragmentCompat {
         
         // CRITICAL: Set custom preference store name BEFORE loading XML
         // This ensures UI reads from correct SharedPreferences file
-        getPreferenceManager().setSharedPreferencesName("walklight_settings");
+        getPreferenceManager().setSharedPreferencesName(SettingsSnapshot.PREFS_NAME);
         
         // Set preferences from XML resource (now reads from correct store)
         setPreferencesFromResource(R.xml.settings_preferences, rootKey);
@@ -83,7 +84,7 @@ public class SettingsFragment extends PreferenceFragmentCompat {
         SwitchPreferenceCompat keepLightPref = findPreference("keep_light_on_close");
         if (keepLightPref != null) {
             // Debug: Check initial UI vs stored value alignment
-            boolean storedValue = getPreferenceManager().getSharedPreferences().getBoolean("keep_light_on_close", true);
+            boolean storedValue = SettingsStore.get(requireContext()).keepLightOnClose;
             boolean uiValue = keepLightPref.isChecked();
             Log.d(TAG, "🔍 INITIAL STATE: Stored=" + storedValue + ", UI=" + uiValue + " (should match!)");
             
@@ -101,9 +102,6 @@ public class SettingsFragment extends PreferenceFragmentCompat {
      * B2.3.1: Setup companion app picker with Spotify default detection
      */
     private void setupCompanionAppPicker() {
-        // Check if companion app is already stored
-        String storedPackage = getPreferenceManager().getSharedPreferences().getString("companion_app_package", null);
-        
         // Skip auto-detection, use interactive app picker instead
         Log.d("APP_PICKER", "📱 B2.3.2: Interactive app picker ready");
         
@@ -114,88 +112,36 @@ public class SettingsFragment extends PreferenceFragmentCompat {
     // NOTE: Old auto-detection method removed - now using interactive app picker
     
     /**
-     * Update companion app preference display with stored app info
+     * Update companion app preference display with stored app info.
+     * Label and pre-scaled icon come from CompanionAppCache (off the main thread).
      */
     private void updateCompanionAppDisplay() {
         Preference companionPref = findPreference("companion_app_display");
         if (companionPref == null) return;
         
-        String storedPackage = getPreferenceManager().getSharedPreferences().getString("companion_app_package", null);
-        String storedClass = getPreferenceManager().getSharedPreferences().getString("companion_app_class", null);
-        String storedName = getPreferenceManager().getSharedPreferences().getString("companion_app_name", "No app selected");
+        SettingsSnapshot settings = SettingsStore.get(requireContext());
+        String storedPackage = settings.companionPackage;
+        String storedClass = settings.companionClass;
+        String storedName = settings.companionName != null ? settings.companionName : "No app selected";
         
         if (storedPackage != null) {
-            // Try multiple approaches to get app info and icon
-            PackageManager pm = requireContext().getPackageManager();
-            Drawable icon = null;
-            String displayName = storedName;
-            
-            // Try approach 1: Standard ApplicationInfo
-            try {
-                ApplicationInfo appInfo = pm.getApplicationInfo(storedPackage, 0);
-                icon = pm.getApplicationIcon(appInfo);
-                // Also try to get better app name if stored name is just package name
-                if (displayName.equals(storedPackage)) {
-                    displayName = pm.getApplicationLabel(appInfo).toString();
-                }
-                Log.d("APP_PICKER", "✅ Got icon and name via ApplicationInfo: " + displayName);
-            } catch (Exception e1) {
-                Log.d("APP_PICKER", "⚠️ ApplicationInfo failed, trying activity approach...");
-                
-                // Try approach 2: Activity info for launcher activity
-                if (storedClass != null) {
-                    try {
-                        ComponentName component = new ComponentName(storedPackage, storedClass);
-                        ActivityInfo activityInfo = pm.getActivityInfo(component, 0);
-                        icon = activityInfo.loadIcon(pm);
-                        if (displayName.equals(storedPackage)) {
-                            displayName = activityInfo.loadLabel(pm).toString();
-                        }
-                        Log.d("APP_PICKER", "✅ Got icon and name via ActivityInfo: " + displayName);
-                    } catch (Exception e2) {
-                        Log.d("APP_PICKER", "⚠️ ActivityInfo failed, trying installed apps search...");
-                        
-                        // Try approach 3: Search installed apps
-                        try {
-                            java.util.List<ApplicationInfo> installedApps = pm.getInstalledApplications(0); // Use 0 to get ALL apps
-                            Log.d("APP_PICKER", "🔍 Display: Searching " + installedApps.size() + " apps for: " + storedPackage);
-                            
-                            boolean foundApp = false;
-                            for (ApplicationInfo app : installedApps) {
-                                if (app.packageName.equals(storedPackage)) {
-                                    foundApp = true;
-                                    try {
-                                        icon = pm.getApplicationIcon(app);
-                                        if (displayName.equals(storedPackage)) {
-                                            displayName = pm.getApplicationLabel(app).toString();
-                                        }
-                                        Log.d("APP_PICKER", "✅ Got icon and name via installed apps: " + displayName);
-                                        break;
-                                    } catch (Exception e) {
-                                        Log.w("APP_PICKER", "⚠️ Display: Found app but couldn't get icon/label: " + e.getMessage());
-                                    }
-                                }
-                            }
-                            
-                            if (!foundApp) {
-                                Log.w("APP_PICKER", "⚠️ Display: Package " + storedPackage + " not found in installed apps");
-                            }
-                        } catch (Exception e3) {
-                            Log.w("APP_PICKER", "⚠️ Display: Exception in installed apps search: " + e3.getMessage());
-                        }
-                    }
+            // Stored name right away; cached label/icon replace it when loaded
+            companionPref.setTitle(storedName);
+            companionPref.setSummary("");
+            CompanionAppCache.load(requireContext(), storedPackage, storedClass, info -> {
+                if (!isAdded()) return;
+                if (info == null) {
+                    Log.w("APP_PICKER", "⚠️ Display: Package " + storedPackage + " not installed");
+                    return;
                 }
-            }
-            
-                            // Update preference with app info (with or without icon)
-                if (icon != null) {
-                    companionPref.setIcon(icon);
+                if (info.icon != null) {
+                    companionPref.setIcon(new BitmapDrawable(getResources(), info.icon));
                 }
-                companionPref.setTitle(displayName);
-                companionPref.setSummary("");
-
-                Log.d("APP_PICKER", "📱 Display updated: " + displayName);
-                Log.d("APP_PICKER", "📱 Icon available: " + (icon != null));
+                companionPref.setTitle(info.label);
+                
+                Log.d("APP_PICKER", "📱 Display updated: " + info.label);
+                Log.d("APP_PICKER", "📱 Icon available: " + (info.icon != null));
+            });
         } else {
             companionPref.setTitle("No Companion App");
             companionPref.setSummary("Use Pick App button to select");
@@ -304,7 +250,7 @@ public class SettingsFragment extends PreferenceFragmentCompat {
      * B2.5: Initialize default companion app (Spotify) if none is set
      */
     private void initializeDefaults() {
-        String storedPackage = getPreferenceManager().getSharedPreferences().getString("companion_app_package", null);
+        String storedPackage = SettingsStore.get(requireContext()).companionPackage;
         
         if (storedPackage == null) {
             Log.d("APP_PICKER", "🔧 No companion app set - initializing Spotify as default");
@@ -321,30 +267,28 @@ public class SettingsFragment extends PreferenceFragmentCompat {
      */
     private void initializeSpotifyAsDefault() {
         try {
-            String spotifyPackage = "com.spotify.music";
-            String spotifyClass = null; // Will be resolved by PackageManager
+            String spotifyPackage = SplitScreenController.SPOTIFY_PACKAGE;
+            String spotifyClass = null; // Will be resolved from the launchable-app index
             String spotifyName = "Spotify";
             
-            // Try to get the actual launcher activity for Spotify
-            PackageManager pm = requireContext().getPackageManager();
-            Intent launcherIntent = new Intent(Intent.ACTION_MAIN);
-            launcherIntent.addCategory(Intent.CATEGORY_LAUNCHER);
-            launcherIntent.setPackage(spotifyPackage);
-            
-            android.content.pm.ResolveInfo resolveInfo = pm.resolveActivity(launcherIntent, 0);
-            if (resolveInfo != null && resolveInfo.activityInfo != null) {
-                spotifyClass = resolveInfo.activityInfo.name;
+            LaunchableAppIndex index = LaunchableAppIndex.get(requireContext());
+            LaunchableAppIndex.Entry launcher = index.launcherFor(spotifyPackage);
+            if (launcher != null) {
+                spotifyClass = launcher.className;
+                spotifyName = launcher.label;
                 Log.d("APP_PICKER", "✅ Found Spotify launcher activity: " + spotifyClass);
-                
-                // Try to get the actual app name and verify it's installed
-                try {
-                    android.content.pm.ApplicationInfo appInfo = pm.getApplicationInfo(spotifyPackage, 0);
-                    spotifyName = pm.getApplicationLabel(appInfo).toString();
-                    Log.d("APP_PICKER", "✅ Verified Spotify installation: " + spotifyName);
-                } catch (Exception e) {
-                    Log.w("APP_PICKER", "⚠️ Could not verify Spotify installation, using default name");
+            } else if (!index.isReady()) {
+                // Index still building (first run) - one direct lookup
+                Intent launcherIntent = new Intent(Intent.ACTION_MAIN);
+                launcherIntent.addCategory(Intent.CATEGORY_LAUNCHER);
+                launcherIntent.setPackage(spotifyPackage);
+                ResolveInfo resolveInfo = requireContext().getPackageManager().resolveActivity(launcherIntent, 0);
+                if (resolveInfo != null && resolveInfo.activityInfo != null) {
+                    spotifyClass = resolveInfo.activityInfo.name;
+                    Log.d("APP_PICKER", "✅ Found Spotify launcher activity: " + spotifyClass);
                 }
-            } else {
+            }
+            if (spotifyClass == null) {
                 Log.w("APP_PICKER", "⚠️ Spotify not found, setting placeholder - user can change via picker");
                 // Set a placeholder that user can change - app picker will work regardless
                 spotifyClass = "com.spotify.music.MainActivity"; // Common fallback
@@ -372,10 +316,15 @@ public class SettingsFragment extends PreferenceFragmentCompat {
      * Launch the stored companion app
      */
     private void launchCompanionApp() {
-        String storedPackage = getPreferenceManager().getSharedPreferences().getString("companion_app_package", null);
-        String storedClass = getPreferenceManager().getSharedPreferences().getString("companion_app_class", null);
+        SettingsSnapshot settings = SettingsStore.get(requireContext());
+        String storedPackage = settings.companionPackage;
+        String storedClass = settings.companionClass;
         
-        if (storedPackage != null && storedClass != null) {
+        if (storedPackage != null && storedClass != null
+                && !LaunchableAppIndex.get(requireContext()).isLaunchable(storedPackage, storedClass)) {
+            Log.d("APP_PICKER", "⚠️ Companion app no longer installed or disabled: " + storedPackage);
+            android.widget.Toast.makeText(getContext(), "Companion app not installed", android.widget.Toast.LENGTH_SHORT).show();
+        } else if (storedPackage != null && storedClass != null) {
             try {
                 Log.d("APP_PICKER", "🚀 Launching companion app: " + storedPackage + "/" + storedClass);
                 
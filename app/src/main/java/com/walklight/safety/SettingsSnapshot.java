@@ -0,0 +1,53 @@
+package com.walklight.safety;
+
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Immutable copy of the walklight_settings preferences. Read it from
+ * {@link SettingsStore#get(android.content.Context)}; a new instance replaces the old one whenever
+ * a setting changes, so holders never see a mix.
+ */
+public final class SettingsSnapshot {
+    public static final String PREFS_NAME = "walklight_settings";
+    public static final String KEY_KEEP_LIGHT_ON_CLOSE = "keep_light_on_close";
+    public static final String KEY_COMPANION_PACKAGE = "companion_app_package";
+    public static final String KEY_COMPANION_CLASS = "companion_app_class";
+    public static final String KEY_COMPANION_NAME = "companion_app_name";
+
+    /** Matches android:defaultValue in settings_preferences.xml */
+    static final SettingsSnapshot DEFAULTS = new SettingsSnapshot(true, null, null, null);
+
+    public final boolean keepLightOnClose;
+    @Nullable public final String companionPackage;
+    @Nullable public final String companionClass;
+    @Nullable public final String companionName;
+
+    SettingsSnapshot(boolean keepLightOnClose, @Nullable String companionPackage,
+                     @Nullable String companionClass, @Nullable String companionName) {
+        this.keepLightOnClose = keepLightOnClose;
+        this.companionPackage = companionPackage;
+        this.companionClass = companionClass;
+        this.companionName = companionName;
+    }
+
+    static SettingsSnapshot from(SharedPreferences prefs) {
+        return new SettingsSnapshot(
+                prefs.getBoolean(KEY_KEEP_LIGHT_ON_CLOSE, DEFAULTS.keepLightOnClose),
+                prefs.getString(KEY_COMPANION_PACKAGE, null),
+                prefs.getString(KEY_COMPANION_CLASS, null),
+                prefs.getString(KEY_COMPANION_NAME, null));
+    }
+
+    /** A companion app has been picked (package and launcher class both known). */
+    public boolean hasCompanionApp() {
+        return companionPackage != null && companionClass != null;
+    }
+
+    @Override
+    public String toString() {
+        return "SettingsSnapshot{keepLightOnClose=" + keepLightOnClose
+                + ", companion=" + companionPackage + "/" + companionClass + " (" + companionName + ")}";
+    }
+}
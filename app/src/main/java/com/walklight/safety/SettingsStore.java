@@ -0,0 +1,65 @@
+package com.walklight.safety;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.preference.PreferenceManager;
+
+/**
+ * Process-wide holder of the current {@link SettingsSnapshot}. Loaded once off the main thread
+ * from Application.onCreate, then swapped atomically by an OnSharedPreferenceChangeListener, so
+ * lifecycle callbacks and exit handling read settings with a single volatile load.
+ */
+public final class SettingsStore {
+    private static final String TAG = "SettingsStore";
+
+    private static volatile SettingsSnapshot snapshot;
+    private static SharedPreferences prefs;
+    // SharedPreferences only keeps a weak reference to its listeners
+    private static final SharedPreferences.OnSharedPreferenceChangeListener changeListener =
+            (changedPrefs, key) -> snapshot = SettingsSnapshot.from(changedPrefs);
+
+    private SettingsStore() {}
+
+    static void init(Context context) {
+        Context appContext = context.getApplicationContext();
+        BackgroundExecutor.execute(() -> load(appContext));
+    }
+
+    /**
+     * Current settings. Only touches disk if called before the background load finished.
+     */
+    public static SettingsSnapshot get(Context context) {
+        SettingsSnapshot local = snapshot;
+        if (local == null) {
+            load(context.getApplicationContext());
+            local = snapshot;
+        }
+        return local;
+    }
+
+    /** Tests: forget the loaded settings so the next get() reads the current Application's. */
+    @VisibleForTesting
+    static synchronized void reset() {
+        if (prefs != null) {
+            prefs.unregisterOnSharedPreferenceChangeListener(changeListener);
+        }
+        prefs = null;
+        snapshot = null;
+    }
+
+    private static synchronized void load(Context appContext) {
+        if (prefs != null) return;
+        // Writes the XML defaults once; a no-op flag check on later launches
+        PreferenceManager.setDefaultValues(appContext, SettingsSnapshot.PREFS_NAME, Context.MODE_PRIVATE,
+                R.xml.settings_preferences, false);
+        SharedPreferences loaded = appContext.getSharedPreferences(SettingsSnapshot.PREFS_NAME, Context.MODE_PRIVATE);
+        // Register before reading so a write in between isn't lost
+        loaded.registerOnSharedPreferenceChangeListener(changeListener);
+        snapshot = SettingsSnapshot.from(loaded);
+        prefs = loaded;
+        Log.d(TAG, "Settings loaded: " + snapshot);
+    }
+}
@@ -0,0 +1,19 @@
+package com.walklight.safety;
+
+import android.app.Activity;
+import android.os.Bundle;
+
+/**
+ * Launcher shortcut trampoline ("Light 30%", "Light 100%", "Off"). Launcher shortcuts can only
+ * start activities, so this one has no layout and no window (Theme.NoDisplay): it hands the
+ * action to TorchActions and finishes right away, leaving MainActivity untouched.
+ */
+public class ShortcutActivity extends Activity {
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        TorchActions.perform(this, getIntent(), null);
+        finish();
+    }
+}
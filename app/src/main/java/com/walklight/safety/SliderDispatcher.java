@@ -0,0 +1,73 @@
+package com.walklight.safety;
+
+import android.view.Choreographer;
+
+/**
+ * The one entry point for slider input. User drag steps are collected into a SliderFrame and
+ * applied once per Choreographer frame: at most one torch level, one screen level and one write
+ * per mirrored slider, however many touch events arrived. Programmatic changes (including our own
+ * mirror writes) are not input, so there is nothing to guard against re-entering.
+ */
+public final class SliderDispatcher implements Choreographer.FrameCallback {
+
+    /** Where a frame's result goes (MainActivity). Main thread. */
+    public interface Target {
+        boolean isSyncEnabled();
+
+        boolean isTorchOn();
+
+        void applyTorchLevel(float intensity);
+
+        void applyScreenLevel(float intensity);
+
+        void mirrorLedSlider(float value);
+
+        void mirrorScreenSlider(float value);
+    }
+
+    private final Target target;
+    private final SliderFrame frame = new SliderFrame();
+    private boolean frameScheduled;
+
+    public SliderDispatcher(Target target) {
+        this.target = target;
+    }
+
+    /** User input on {@code slider} (SliderSync.LED / SCREEN / SYNCED / SCREEN_ONLY); callers drop programmatic changes. */
+    public void onSliderChanged(int slider, float value) {
+        frame.offer(slider, value);
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        if (frame.isEmpty()) return;
+        frame.resolve(target.isSyncEnabled(), target.isTorchOn());
+
+        if (!Float.isNaN(frame.torchLevel())) {
+            target.applyTorchLevel(frame.torchLevel());
+        }
+        if (!Float.isNaN(frame.screenLevel())) {
+            target.applyScreenLevel(frame.screenLevel());
+        }
+        if (!Float.isNaN(frame.screenSliderValue())) {
+            target.mirrorScreenSlider(frame.screenSliderValue());
+        }
+        if (!Float.isNaN(frame.ledSliderValue())) {
+            target.mirrorLedSlider(frame.ledSliderValue());
+        }
+    }
+
+    /** Drop input that hasn't been applied yet (activity going away). */
+    public void cancel() {
+        if (frameScheduled) {
+            frameScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+        frame.resolve(false, false);
+    }
+}
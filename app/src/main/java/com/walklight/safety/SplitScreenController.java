@@ -1,45 +1,194 @@
 package com.walklight.safety;
 
+import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 
 /**
- * Extracted split-screen behavior (no functional change from POC logic).
+ * Extracted split-screen behavior. Enter and exit are driven by the activity's window events
+ * (forwarded from MainActivity) instead of fixed delays; each step has a timeout as a safety net
+ * for devices or API levels that don't deliver the event.
  */
 public class SplitScreenController {
     private static final String TAG = "SplitScreen";
+    /** Default companion, and the fallback when the chosen one is gone. */
+    public static final String SPOTIFY_PACKAGE = "com.spotify.music";
+
+    private enum Phase {
+        IDLE,
+        /** Enter: waiting until our window is top-resumed and focused before launching adjacent. */
+        ENTER_WAIT_READY,
+        /** Enter: companion launched, waiting for the split to happen. */
+        ENTER_WAIT_SPLIT,
+        /** Exit: task moved back, waiting for it to leave the top. */
+        EXIT_WAIT_BACKGROUND,
+        /** Exit: brought back to front, waiting for the fullscreen window. */
+        EXIT_WAIT_FULLSCREEN,
+    }
+
+    private final Activity activity;
     private final Context context;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable timeout = this::onTimeout;
+    private final int readyTimeoutMs;
+    private final int settleTimeoutMs;
+    private Phase phase = Phase.IDLE;
+    private Runnable bringToFront;
+    private Runnable onDone;
+
+    public SplitScreenController(Activity activity) {
+        this.activity = activity;
+        this.context = activity;
+        this.readyTimeoutMs = activity.getResources().getInteger(R.integer.split_ready_timeout_ms);
+        this.settleTimeoutMs = activity.getResources().getInteger(R.integer.split_settle_timeout_ms);
+    }
 
-    public SplitScreenController(Context context) {
-        this.context = context;
+    /** A transition is waiting for window events. */
+    public boolean isTransitioning() {
+        return phase != Phase.IDLE;
     }
 
-    public void enterSplitScreen(boolean alreadyInMultiWindow, Runnable onBringBackFull) {
+    /** {@code onEntered} runs once the split happened (or the settle timeout gave up on it). */
+    public void enterSplitScreen(boolean alreadyInMultiWindow, Runnable onEntered) {
         Log.d(TAG, "Attempting to launch companion app...");
         Log.d(TAG, "Currently in multi-window mode: " + alreadyInMultiWindow);
+        cancel();
+        onDone = onEntered;
 
-        if (!alreadyInMultiWindow) {
-            Log.d(TAG, "Not in split-screen - forcing split-screen then launching companion app");
-            new Handler(Looper.getMainLooper()).postDelayed(this::launchCompanionAppInSplitScreen, 200);
-        } else {
+        if (alreadyInMultiWindow) {
             Log.d(TAG, "Already in split-screen - launching companion app in adjacent window");
+            SplitScreenMetrics.mark(SplitScreenMetrics.LAUNCH_ADJACENT);
             launchCompanionAppInSplitScreen();
+            finish();
+        } else if (activity.hasWindowFocus()) {
+            Log.d(TAG, "Not in split-screen - window ready, launching companion app adjacent");
+            launchAndAwaitSplit();
+        } else {
+            // Launching adjacent from a window that isn't top-resumed yet gets ignored on some devices
+            Log.d(TAG, "Not in split-screen - waiting for our window before launching companion app");
+            await(Phase.ENTER_WAIT_READY, readyTimeoutMs);
         }
     }
 
-    public void exitSplitScreen(Runnable moveTaskToBack, Runnable bringToFront) {
+    /** {@code onExited} runs once we're back fullscreen (or the settle timeout gave up on it). */
+    public void exitSplitScreen(Runnable moveTaskToBack, Runnable bringToFront, Runnable onExited) {
         Log.d(TAG, "=== EXITING SPLIT-SCREEN MODE ===");
         Log.d(TAG, "Task Manipulation: Moving to background then bringing to front");
+        cancel();
+        this.bringToFront = bringToFront;
+        onDone = onExited;
+        await(Phase.EXIT_WAIT_BACKGROUND, readyTimeoutMs);
+        SplitScreenMetrics.mark(SplitScreenMetrics.MOVE_TO_BACK);
         moveTaskToBack.run();
-        new Handler(Looper.getMainLooper()).postDelayed(bringToFront, 150);
+    }
+
+    /** Drop a pending transition without running its remaining steps. */
+    public void cancel() {
+        handler.removeCallbacks(timeout);
+        phase = Phase.IDLE;
+        bringToFront = null;
+        onDone = null;
+    }
+
+    // ================================
+    // WINDOW EVENTS (from MainActivity)
+    // ================================
+
+    public void onMultiWindowModeChanged(boolean inMultiWindow) {
+        if (phase == Phase.ENTER_WAIT_SPLIT && inMultiWindow) {
+            finish();
+        } else if (phase == Phase.EXIT_WAIT_BACKGROUND && !inMultiWindow) {
+            bringBackToFront();
+        } else if (phase == Phase.EXIT_WAIT_FULLSCREEN && !inMultiWindow) {
+            finish();
+        }
+    }
+
+    /** Activity.onTopResumedActivityChanged (API 29+). */
+    public void onTopResumedActivityChanged(boolean topResumed) {
+        if (phase == Phase.ENTER_WAIT_READY && topResumed) {
+            SplitScreenMetrics.mark(SplitScreenMetrics.WINDOW_READY);
+            launchAndAwaitSplit();
+        } else if (phase == Phase.EXIT_WAIT_BACKGROUND && !topResumed) {
+            bringBackToFront();
+        } else if (phase == Phase.EXIT_WAIT_FULLSCREEN && topResumed && !activity.isInMultiWindowMode()) {
+            finish();
+        }
+    }
+
+    public void onWindowFocusChanged(boolean hasFocus) {
+        if (phase == Phase.ENTER_WAIT_READY && hasFocus) {
+            SplitScreenMetrics.mark(SplitScreenMetrics.WINDOW_READY);
+            launchAndAwaitSplit();
+        }
+    }
+
+    /** Decor view laid out - window bounds may have changed. */
+    public void onWindowLayoutChanged() {
+        boolean inMultiWindow = activity.isInMultiWindowMode();
+        if (phase == Phase.ENTER_WAIT_SPLIT && inMultiWindow) {
+            finish();
+        } else if (phase == Phase.EXIT_WAIT_FULLSCREEN && !inMultiWindow) {
+            finish();
+        }
+    }
+
+    private void launchAndAwaitSplit() {
+        await(Phase.ENTER_WAIT_SPLIT, settleTimeoutMs);
+        SplitScreenMetrics.mark(SplitScreenMetrics.LAUNCH_ADJACENT);
+        launchCompanionAppInSplitScreen();
+    }
+
+    private void bringBackToFront() {
+        Runnable action = bringToFront;
+        bringToFront = null;
+        await(Phase.EXIT_WAIT_FULLSCREEN, settleTimeoutMs);
+        SplitScreenMetrics.mark(SplitScreenMetrics.BRING_TO_FRONT);
+        if (action != null) action.run();
+    }
+
+    private void onTimeout() {
+        Log.d(TAG, "⏱️ Split-screen " + phase + " timed out - continuing without the window event");
+        SplitScreenMetrics.mark(SplitScreenMetrics.TIMED_OUT);
+        switch (phase) {
+            case ENTER_WAIT_READY:
+                launchAndAwaitSplit();
+                break;
+            case EXIT_WAIT_BACKGROUND:
+                bringBackToFront();
+                break;
+            case ENTER_WAIT_SPLIT:
+            case EXIT_WAIT_FULLSCREEN:
+                finish();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void await(Phase next, int timeoutMs) {
+        handler.removeCallbacks(timeout);
+        phase = next;
+        handler.postDelayed(timeout, timeoutMs);
+    }
+
+    private void finish() {
+        Runnable done = onDone;
+        cancel();
+        SplitScreenMetrics.end(SplitScreenMetrics.DONE);
+        if (done != null) done.run();
     }
 
     public void launchSpotifyInSplitScreen() {
+        if (!LaunchableAppIndex.get(context).hasLauncher(SPOTIFY_PACKAGE)) {
+            Log.d(TAG, "Spotify not installed (index), opening web in split-screen");
+            launchSpotifyWebInSplitScreen();
+            return;
+        }
         try {
             Intent spotifyIntent = new Intent(Intent.ACTION_VIEW, Uri.parse("spotify:"));
             spotifyIntent.addFlags(Intent.FLAG_ACTIVITY_LAUNCH_ADJACENT | Intent.FLAG_ACTIVITY_NEW_TASK);
@@ -47,12 +196,16 @@ public class SplitScreenController {
             Log.d(TAG, "Spotify launched in adjacent window");
         } catch (Exception e) {
             Log.d(TAG, "Spotify app not available, opening web in split-screen");
-            Intent webIntent = new Intent(Intent.ACTION_VIEW, Uri.parse("https://open.spotify.com"));
-            webIntent.addFlags(Intent.FLAG_ACTIVITY_LAUNCH_ADJACENT | Intent.FLAG_ACTIVITY_NEW_TASK);
-            context.startActivity(webIntent);
+            launchSpotifyWebInSplitScreen();
         }
     }
 
+    private void launchSpotifyWebInSplitScreen() {
+        Intent webIntent = new Intent(Intent.ACTION_VIEW, Uri.parse("https://open.spotify.com"));
+        webIntent.addFlags(Intent.FLAG_ACTIVITY_LAUNCH_ADJACENT | Intent.FLAG_ACTIVITY_NEW_TASK);
+        context.startActivity(webIntent);
+    }
+
     /**
      * B3: Launch Companion App in Split-Screen (Dynamic App System)
      * 
@@ -60,17 +213,22 @@ public class SplitScreenController {
      * Falls back to Spotify if no companion app is configured.
      */
     public void launchCompanionAppInSplitScreen() {
-        SharedPreferences prefs = context.getSharedPreferences("walklight_settings", Context.MODE_PRIVATE);
-        String packageName = prefs.getString("companion_app_package", null);
-        String className = prefs.getString("companion_app_class", null);
-        String appName = prefs.getString("companion_app_name", "Unknown App");
+        SettingsSnapshot settings = SettingsStore.get(context);
+        String packageName = settings.companionPackage;
+        String className = settings.companionClass;
+        String appName = settings.companionName != null ? settings.companionName : "Unknown App";
 
         Log.d(TAG, "=== LAUNCHING COMPANION APP IN SPLIT-SCREEN ===");
         Log.d(TAG, "Stored package: " + packageName);
         Log.d(TAG, "Stored class: " + className);
         Log.d(TAG, "App name: " + appName);
 
-        if (packageName != null && className != null) {
+        if (packageName != null && className != null
+                && !LaunchableAppIndex.get(context).isLaunchable(packageName, className)) {
+            // Uninstalled or disabled since it was picked - straight to the fallback
+            Log.d(TAG, "⚠️ Companion app '" + appName + "' no longer launchable, falling back to Spotify");
+            launchSpotifyInSplitScreen();
+        } else if (packageName != null && className != null) {
             // Launch the selected companion app
             try {
                 Intent companionIntent = new Intent();
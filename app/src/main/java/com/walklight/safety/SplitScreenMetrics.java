@@ -0,0 +1,187 @@
+package com.walklight.safety;
+
+import android.os.SystemClock;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Timing points for split-screen enter/exit, from the multi-window button tap through
+ * SplitScreenController's steps and the lifecycle callbacks they cause, plus the number of torch
+ * HAL calls made while a transition is running. The last few transitions are kept in preallocated
+ * slots and shown per phase in {@code adb shell dumpsys activity com.walklight.safety}.
+ * Release builds skip recording (ENABLED is a compile-time constant).
+ */
+public final class SplitScreenMetrics {
+    public static final boolean ENABLED = EventTracer.ENABLED;
+    private static final int HISTORY = 8;
+    private static final int MAX_POINTS = 24;
+
+    // ================================
+    // POINTS (index into NAMES)
+    // ================================
+    public static final int TAP = 0;
+    /** Enter: our window got focus / top-resumed, or the ready timeout fired */
+    public static final int WINDOW_READY = 1;
+    public static final int LAUNCH_ADJACENT = 2;
+    public static final int MOVE_TO_BACK = 3;
+    public static final int BRING_TO_FRONT = 4;
+    public static final int MULTI_WINDOW_ON = 5;
+    public static final int MULTI_WINDOW_OFF = 6;
+    public static final int PAUSE = 7;
+    public static final int STOP = 8;
+    public static final int RESUME = 9;
+    public static final int DONE = 10;
+    /** A step gave up waiting for its window event */
+    public static final int TIMED_OUT = 11;
+
+    private static final String[] NAMES = {
+            "TAP", "WINDOW_READY", "LAUNCH_ADJACENT", "MOVE_TO_BACK", "BRING_TO_FRONT",
+            "MULTI_WINDOW_ON", "MULTI_WINDOW_OFF", "PAUSE", "STOP", "RESUME", "DONE", "TIMED_OUT",
+    };
+
+    /** One enter or exit. Slots are reused once HISTORY newer transitions exist. */
+    static final class Transition {
+        boolean entering;
+        boolean finished;
+        int torchCalls;
+        int size;
+        final int[] points = new int[MAX_POINTS];
+        final long[] timesNs = new long[MAX_POINTS];
+
+        /** Nanoseconds from the first {@code from} point to the first {@code to} point after it, or -1. */
+        long phaseNs(int from, int to) {
+            for (int i = 0; i < size; i++) {
+                if (points[i] != from) continue;
+                for (int j = i + 1; j < size; j++) {
+                    if (points[j] == to) return timesNs[j] - timesNs[i];
+                }
+                return -1;
+            }
+            return -1;
+        }
+
+        long totalNs() {
+            return size == 0 ? 0 : timesNs[size - 1] - timesNs[0];
+        }
+
+        boolean has(int point) {
+            for (int i = 0; i < size; i++) {
+                if (points[i] == point) return true;
+            }
+            return false;
+        }
+    }
+
+    private static final SplitScreenMetrics INSTANCE = new SplitScreenMetrics(ENABLED ? HISTORY : 0);
+
+    private final Transition[] history;
+    private long count;
+    private Transition active;
+
+    SplitScreenMetrics(int history) {
+        this.history = new Transition[history];
+        for (int i = 0; i < history; i++) {
+            this.history[i] = new Transition();
+        }
+    }
+
+    /** Multi-window button tapped; {@code entering} is false for the exit direction. */
+    public static void begin(boolean entering) {
+        if (ENABLED) INSTANCE.beginAt(entering, SystemClock.elapsedRealtimeNanos());
+    }
+
+    /** Ignored unless a transition is running. */
+    public static void mark(int point) {
+        if (ENABLED) INSTANCE.markAt(point, SystemClock.elapsedRealtimeNanos());
+    }
+
+    /** DONE or TIMED_OUT; closes the running transition. */
+    public static void end(int point) {
+        if (ENABLED) INSTANCE.endAt(point, SystemClock.elapsedRealtimeNanos());
+    }
+
+    /** TorchController: one HAL call. Counted against the running transition, if any. */
+    public static void onTorchCall() {
+        if (ENABLED) INSTANCE.countTorchCall();
+    }
+
+    public static void dump(String prefix, PrintWriter writer) {
+        if (!ENABLED) {
+            writer.println(prefix + "SplitScreenMetrics: disabled in release builds");
+            return;
+        }
+        INSTANCE.dumpTo(prefix, writer);
+    }
+
+    /** Most recent transition (running or finished), or null. Tests read this. */
+    static Transition last() {
+        return INSTANCE.latest();
+    }
+
+    static void reset() {
+        INSTANCE.clear();
+    }
+
+    synchronized void beginAt(boolean entering, long nowNs) {
+        if (history.length == 0) return;
+        Transition transition = history[(int) (count % history.length)];
+        count++;
+        transition.entering = entering;
+        transition.finished = false;
+        transition.torchCalls = 0;
+        transition.size = 0;
+        active = transition;
+        markAt(TAP, nowNs);
+    }
+
+    synchronized void markAt(int point, long nowNs) {
+        Transition transition = active;
+        if (transition == null || transition.size == MAX_POINTS) return;
+        transition.points[transition.size] = point;
+        transition.timesNs[transition.size] = nowNs;
+        transition.size++;
+    }
+
+    synchronized void endAt(int point, long nowNs) {
+        if (active == null) return;
+        markAt(point, nowNs);
+        active.finished = true;
+        active = null;
+    }
+
+    synchronized void countTorchCall() {
+        if (active != null) active.torchCalls++;
+    }
+
+    synchronized Transition latest() {
+        return count == 0 ? null : history[(int) ((count - 1) % history.length)];
+    }
+
+    synchronized void clear() {
+        count = 0;
+        active = null;
+    }
+
+    synchronized void dumpTo(String prefix, PrintWriter writer) {
+        int size = (int) Math.min(count, history.length);
+        writer.println(prefix + "SplitScreenMetrics: " + size + " of " + count + " transitions");
+        for (long i = count - size; i < count; i++) {
+            Transition transition = history[(int) (i % history.length)];
+            writer.println(String.format(Locale.US, "%s  #%d %s %s total=%.3fms torchCalls=%d",
+                    prefix, i, transition.entering ? "enter" : "exit",
+                    transition.finished ? "done" : "running", transition.totalNs() / 1_000_000.0,
+                    transition.torchCalls));
+            for (int p = 0; p < transition.size; p++) {
+                long sinceTap = transition.timesNs[p] - transition.timesNs[0];
+                long phase = p == 0 ? 0 : transition.timesNs[p] - transition.timesNs[p - 1];
+                writer.println(String.format(Locale.US, "%s    %-16s +%9.3fms (phase %.3fms)",
+                        prefix, nameOf(transition.points[p]), sinceTap / 1_000_000.0, phase / 1_000_000.0));
+            }
+        }
+    }
+
+    static String nameOf(int point) {
+        return point >= 0 && point < NAMES.length ? NAMES[point] : "POINT_" + point;
+    }
+}
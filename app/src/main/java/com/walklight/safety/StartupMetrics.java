@@ -0,0 +1,49 @@
+package com.walklight.safety;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Time-to-light: process start until the torch callback reports the ON that this launch's own
+ * request turned on. An ON already lit elsewhere (reported when the callback registers) or
+ * lit by the tile / notification before any launch doesn't count.
+ */
+public final class StartupMetrics {
+    private static final String TAG = "StartupMetrics";
+    public static final long NOT_RECORDED = -1L;
+
+    private static volatile long timeToLightMs = NOT_RECORDED;
+    // Set by the first fresh MainActivity launch of the process (main thread)
+    private static volatile boolean launchRequested;
+    // Set on the torch thread when a command turned the LED on after that launch
+    private static volatile boolean lightCommanded;
+
+    private StartupMetrics() {}
+
+    /** Main thread, fresh launch: the ON commands that follow are this launch's. */
+    static void onLaunchRequested() {
+        launchRequested = true;
+    }
+
+    /** Torch thread: a command of ours took the LED from off to on. */
+    static void onLightCommanded() {
+        if (launchRequested) {
+            lightCommanded = true;
+        }
+    }
+
+    /** Called from the torch callback thread on every hardware report; records the launch's ON only. */
+    static void onTorchReported(boolean on) {
+        if (!on || !lightCommanded || timeToLightMs != NOT_RECORDED) {
+            return;
+        }
+        timeToLightMs = SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+        Log.i(TAG, "⏱️ Time-to-light: " + timeToLightMs + " ms from process start");
+    }
+
+    /** Milliseconds from process start, or NOT_RECORDED (no launch lit the LED yet, no flash, or it was already lit). */
+    public static long getTimeToLightMs() {
+        return timeToLightMs;
+    }
+}
@@ -0,0 +1,18 @@
+package com.walklight.safety;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Widget button target. Drives the torch through TorchActions without starting any activity.
+ */
+public class TorchActionReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        // The command runs on the torch thread; keep the receiver alive until it is applied
+        PendingResult result = goAsync();
+        TorchActions.perform(context, intent, result::finish);
+    }
+}
@@ -0,0 +1,99 @@
+package com.walklight.safety;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+import androidx.core.content.pm.ShortcutInfoCompat;
+import androidx.core.content.pm.ShortcutManagerCompat;
+import androidx.core.graphics.drawable.IconCompat;
+
+/**
+ * Preset torch actions for entry points that must not launch MainActivity: the home-screen
+ * widget (via TorchActionReceiver) and launcher shortcuts (via ShortcutActivity).
+ */
+public final class TorchActions {
+    public static final String ACTION_ON = "com.walklight.safety.action.LIGHT_ON";
+    public static final String ACTION_OFF = "com.walklight.safety.action.LIGHT_OFF";
+    public static final String ACTION_TOGGLE = "com.walklight.safety.action.LIGHT_TOGGLE";
+    /** Intensity for ACTION_ON, 1-100. Missing = last saved intensity. */
+    public static final String EXTRA_PERCENT = "com.walklight.safety.extra.PERCENT";
+
+    private static final String SHORTCUT_LAST_LEVEL = "light_last_level";
+    private static volatile int lastPublishedPercent = -1;
+
+    private TorchActions() {}
+
+    public static Intent intent(Context context, Class<?> target, String action, int percent) {
+        Intent intent = new Intent(context, target).setAction(action);
+        if (percent > 0) {
+            intent.putExtra(EXTRA_PERCENT, percent);
+        }
+        return intent;
+    }
+
+    /**
+     * Run the action carried by {@code intent}. {@code done} runs on the main thread once the
+     * command has been applied (or skipped).
+     */
+    public static void perform(Context context, Intent intent, @Nullable Runnable done) {
+        Context appContext = context.getApplicationContext();
+        TorchExecutor executor = TorchExecutor.get(appContext);
+        String action = intent.getAction();
+        int percent = intent.getIntExtra(EXTRA_PERCENT, 0);
+        boolean turnOn = ACTION_ON.equals(action) || (ACTION_TOGGLE.equals(action) && !executor.isTorchOn());
+        TorchStartup.withCapabilities(appContext, capabilities -> {
+            if (!capabilities.hasFlash) {
+                if (done != null) {
+                    new Handler(Looper.getMainLooper()).post(done);
+                }
+                return;
+            }
+            if (!turnOn) {
+                executor.requestOff(capabilities.cameraId, null, (success, error) -> runDone(done));
+                return;
+            }
+            float intensity = percent > 0 ? percent / 100f : TorchStartup.getStartIntensity();
+            int level = TorchStrength.toLevel(intensity, capabilities.maxLevel);
+            executor.requestOn(capabilities.cameraId, level, capabilities.supportsStrength, null, (success, error) -> {
+                // Nothing else keeps the process (and the light) alive
+                if (success && !TorchService.isHoldingSession()
+                        && !TorchService.hold(appContext, capabilities.cameraId, capabilities.maxLevel,
+                                capabilities.supportsStrength, intensity)) {
+                    // Refused (background start limits) - an orphaned light would have no off switch
+                    executor.requestOff(capabilities.cameraId, null, (offSuccess, offError) -> runDone(done));
+                    return;
+                }
+                runDone(done);
+            });
+        });
+    }
+
+    /**
+     * Dynamic launcher shortcut for the user's own level, next to the static presets.
+     * Binder work, so it runs on the torch thread; skipped when the percentage hasn't changed.
+     */
+    public static void publishLastLevelShortcut(Context context, float intensity) {
+        int percent = Math.round(intensity * 100);
+        if (percent == lastPublishedPercent) return;
+        lastPublishedPercent = percent;
+        Context appContext = context.getApplicationContext();
+        TorchExecutor.get(appContext).post(() -> {
+            Intent intent = intent(appContext, ShortcutActivity.class, ACTION_ON, percent);
+            ShortcutInfoCompat shortcut = new ShortcutInfoCompat.Builder(appContext, SHORTCUT_LAST_LEVEL)
+                    .setShortLabel(appContext.getString(R.string.shortcut_light_percent, percent))
+                    .setIcon(IconCompat.createWithResource(appContext, R.drawable.ic_flashlight_24))
+                    .setIntent(intent)
+                    .build();
+            ShortcutManagerCompat.pushDynamicShortcut(appContext, shortcut);
+        });
+    }
+
+    private static void runDone(@Nullable Runnable done) {
+        if (done != null) {
+            done.run();
+        }
+    }
+}
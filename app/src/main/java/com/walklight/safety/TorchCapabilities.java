@@ -0,0 +1,103 @@
+package com.walklight.safety;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.hardware.camera2.CameraManager;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable description of the device's torch hardware: which camera drives it and
+ * whether it supports strength levels. Discovery talks to cameraserver, so it is cached
+ * by {@link CapabilityCache} and only re-run in the background.
+ */
+public final class TorchCapabilities {
+    private static final String TAG = "FlashlightHardware";
+
+    public static final int DEFAULT_MAX_LEVEL = 100; // Default, updated from device capabilities
+
+    public final boolean hasFlash;
+    @Nullable public final String cameraId;
+    public final int maxLevel;
+    public final int defaultLevel;
+    public final boolean supportsStrength;
+    /** Every flash unit on the device, best first. The first one is the primary torch above. */
+    public final List<FlashUnit> units;
+    /** Why there is no usable flash (user-facing), or null. Not cached - transient failures are retried. */
+    @Nullable public final String unavailableReason;
+    final boolean cacheable;
+
+    private TorchCapabilities(List<FlashUnit> units, @Nullable String unavailableReason, boolean cacheable) {
+        FlashUnit primary = units.isEmpty() ? null : units.get(0);
+        this.hasFlash = primary != null;
+        this.cameraId = primary != null ? primary.cameraId : null;
+        this.maxLevel = primary != null ? primary.maxLevel : DEFAULT_MAX_LEVEL;
+        this.defaultLevel = primary != null ? primary.defaultLevel : DEFAULT_MAX_LEVEL;
+        this.supportsStrength = primary != null && primary.supportsStrength;
+        this.units = Collections.unmodifiableList(units);
+        this.unavailableReason = unavailableReason;
+        this.cacheable = cacheable;
+    }
+
+    static TorchCapabilities of(List<FlashUnit> rankedUnits) {
+        if (rankedUnits.isEmpty()) {
+            return unavailable("No camera with flash found!", true);
+        }
+        return new TorchCapabilities(rankedUnits, null, true);
+    }
+
+    static TorchCapabilities unavailable(String reason, boolean cacheable) {
+        return new TorchCapabilities(Collections.emptyList(), reason, cacheable);
+    }
+
+    /** Flash units other than the primary, for driving all of them together. */
+    public List<FlashUnit> companionUnits() {
+        return units.size() > 1 ? units.subList(1, units.size()) : Collections.emptyList();
+    }
+
+    /**
+     * Query the hardware. Several IPCs to cameraserver - call off the main thread when possible.
+     */
+    public static TorchCapabilities discover(Context context, @Nullable CameraManager cameraManager) {
+        // Check if device has flash
+        if (!context.getPackageManager().hasSystemFeature(PackageManager.FEATURE_CAMERA_FLASH)) {
+            return unavailable("Device doesn't have flash!", true);
+        }
+        if (cameraManager == null) {
+            return unavailable("Camera service not available!", false);
+        }
+
+        try {
+            TorchCapabilities capabilities = of(FlashDiscovery.discover(cameraManager));
+            Log.d(TAG, "✅ Selected torch: " + capabilities);
+            return capabilities;
+        } catch (Exception e) {
+            Log.e(TAG, "Camera discovery failed", e);
+            return unavailable("Error initializing camera: " + e.getMessage(), false);
+        }
+    }
+
+    /** Same hardware report, ignoring the transient failure text. */
+    public boolean sameHardware(TorchCapabilities other) {
+        if (other == null || hasFlash != other.hasFlash || units.size() != other.units.size()) {
+            return false;
+        }
+        for (int i = 0; i < units.size(); i++) {
+            if (!units.get(i).serialize().equals(other.units.get(i).serialize())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "TorchCapabilities{hasFlash=" + hasFlash + ", cameraId=" + cameraId + ", maxLevel=" + maxLevel
+                + ", defaultLevel=" + defaultLevel + ", supportsStrength=" + supportsStrength
+                + ", units=" + units + "}";
+    }
+}
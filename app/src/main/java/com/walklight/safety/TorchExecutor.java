@@ -0,0 +1,366 @@
+package com.walklight.safety;
+
+import android.content.Context;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Single ordered worker thread that owns the CameraManager and runs every torch HAL call.
+ * Callers only enqueue commands; results are delivered back on the main thread.
+ * Process-scoped so queued commands (e.g. OFF on exit) still run after the activity is gone.
+ */
+public final class TorchExecutor {
+    private static final String TAG = "TorchExecutor";
+
+    /** Result of a torch command, always invoked on the main thread. */
+    public interface Callback {
+        void onResult(boolean success, @Nullable Exception error);
+    }
+
+    /**
+     * Hardware torch state changes, invoked on the main thread. Covers external changes reported by
+     * CameraManager.TorchCallback (system Quick Settings, other apps) and commands issued by other
+     * parts of the app (tile, notification). Commands a listener issued itself, passed as
+     * {@code origin}, are not echoed back to it.
+     */
+    public interface TorchStateListener {
+        void onTorchStateChanged(boolean on, int strengthLevel);
+    }
+
+    /** Fresh hardware report that differs from the cached one, invoked on the main thread. */
+    public interface CapabilitiesCallback {
+        void onCapabilitiesChanged(TorchCapabilities capabilities);
+    }
+
+    private interface TorchCall {
+        void run() throws CameraAccessException;
+    }
+
+    private static volatile TorchExecutor instance;
+
+    private final CameraManager cameraManager;
+    private final Handler worker;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final StrengthCoalescer strengthCoalescer;
+    private volatile String coalescedCameraId;
+    private volatile TorchStateListener coalescedOrigin;
+
+    // Last state applied to / reported by the hardware. Written on the worker thread only.
+    private volatile boolean hardwareKnown = false;
+    private volatile boolean hardwareOn = false;
+    private volatile int hardwareLevel = StrengthCoalescer.NONE;
+
+    private volatile String boundCameraId;
+    private final boolean driveAllFlashUnits;
+    private volatile List<FlashUnit> companionUnits = Collections.emptyList();
+    private volatile int primaryMaxLevel = TorchCapabilities.DEFAULT_MAX_LEVEL;
+    private final CopyOnWriteArrayList<TorchStateListener> listeners = new CopyOnWriteArrayList<>();
+    private final CameraManager.TorchCallback torchCallback = new CameraManager.TorchCallback() {
+        @Override
+        public void onTorchModeChanged(@NonNull String cameraId, boolean enabled) {
+            if (!cameraId.equals(boundCameraId)) return;
+            // A plain ON from outside leaves the level unknown until onTorchStrengthLevelChanged
+            int level = enabled && hardwareOn ? hardwareLevel : StrengthCoalescer.NONE;
+            onHardwareReport(enabled, level);
+        }
+
+        @Override
+        public void onTorchModeUnavailable(@NonNull String cameraId) {
+            // Camera opened by another app - the torch is off and can't be driven until released
+            if (!cameraId.equals(boundCameraId)) return;
+            onHardwareReport(false, StrengthCoalescer.NONE);
+        }
+
+        @Override
+        public void onTorchStrengthLevelChanged(@NonNull String cameraId, int newStrengthLevel) {
+            if (!cameraId.equals(boundCameraId)) return;
+            onHardwareReport(hardwareOn, newStrengthLevel);
+        }
+    };
+
+    private TorchExecutor(Context appContext) {
+        cameraManager = (CameraManager) appContext.getSystemService(Context.CAMERA_SERVICE);
+        strengthCoalescer = new StrengthCoalescer(
+                appContext.getResources().getInteger(R.integer.torch_max_strength_updates_per_second));
+        driveAllFlashUnits = appContext.getResources().getBoolean(R.bool.torch_drive_all_flash_units);
+        HandlerThread thread = new HandlerThread("WalklightTorch", Process.THREAD_PRIORITY_FOREGROUND);
+        thread.start();
+        worker = new Handler(thread.getLooper());
+    }
+
+    public static TorchExecutor get(Context context) {
+        TorchExecutor local = instance;
+        if (local == null) {
+            synchronized (TorchExecutor.class) {
+                local = instance;
+                if (local == null) {
+                    local = new TorchExecutor(context.getApplicationContext());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * Tests: forget the instance (and stop its thread) so the next get() binds the current
+     * Application's CameraManager. Robolectric recreates the Application for every test.
+     */
+    @VisibleForTesting
+    static void reset() {
+        synchronized (TorchExecutor.class) {
+            TorchExecutor local = instance;
+            instance = null;
+            if (local == null) return;
+            if (local.cameraManager != null && local.boundCameraId != null) {
+                local.cameraManager.unregisterTorchCallback(local.torchCallback);
+            }
+            local.worker.getLooper().quitSafely();
+        }
+    }
+
+    @Nullable
+    public CameraManager getCameraManager() {
+        return cameraManager;
+    }
+
+    /**
+     * Start following the primary flash unit through CameraManager.TorchCallback (which reports
+     * the current state right after registration). With torch_drive_all_flash_units, the other
+     * units follow every command the primary gets.
+     */
+    public synchronized void bindCapabilities(TorchCapabilities capabilities) {
+        companionUnits = driveAllFlashUnits ? capabilities.companionUnits() : Collections.emptyList();
+        primaryMaxLevel = capabilities.maxLevel;
+        String cameraId = capabilities.cameraId;
+        if (cameraManager == null || cameraId == null || cameraId.equals(boundCameraId)) {
+            return;
+        }
+        boolean firstBind = boundCameraId == null;
+        boundCameraId = cameraId;
+        if (firstBind) {
+            cameraManager.registerTorchCallback(torchCallback, worker);
+        } else {
+            // Different flash unit - what we knew about the old one doesn't apply
+            worker.post(() -> hardwareKnown = false);
+        }
+    }
+
+    /**
+     * Re-run camera discovery on the torch thread, after any commands already queued (so a
+     * cached launch lights up first), and repair the cache if the hardware report differs.
+     */
+    public void revalidateCapabilities(Context context, TorchCapabilities cached, CapabilitiesCallback onChanged) {
+        Context appContext = context.getApplicationContext();
+        worker.post(() -> {
+            TorchCapabilities fresh = TorchCapabilities.discover(appContext, cameraManager);
+            if (fresh.sameHardware(cached) || !fresh.cacheable) {
+                return;
+            }
+            Log.w(TAG, "Capability cache stale: " + cached + " -> " + fresh);
+            CapabilityCache.write(appContext, fresh);
+            mainHandler.post(() -> onChanged.onCapabilitiesChanged(fresh));
+        });
+    }
+
+    /** Run a task on the torch thread, in order with the commands already queued. */
+    public void post(Runnable task) {
+        worker.post(task);
+    }
+
+    /** False until the torch callback (or one of our commands) has told us the hardware state. */
+    public boolean isTorchStateKnown() {
+        return hardwareKnown;
+    }
+
+    /** Last hardware state reported by the torch callback (or applied by us). */
+    public boolean isTorchOn() {
+        return hardwareKnown && hardwareOn;
+    }
+
+    public int getTorchLevel() {
+        return hardwareLevel;
+    }
+
+    /** Strength range of the bound flash unit. */
+    public int getMaxLevel() {
+        return primaryMaxLevel;
+    }
+
+    /**
+     * Listen for hardware torch changes. If the state is already known it is delivered right away.
+     */
+    public void addTorchStateListener(TorchStateListener listener) {
+        listeners.add(listener);
+        worker.post(() -> {
+            if (hardwareKnown) {
+                boolean on = hardwareOn;
+                int level = hardwareLevel;
+                mainHandler.post(() -> {
+                    if (listeners.contains(listener)) {
+                        listener.onTorchStateChanged(on, level);
+                    }
+                });
+            }
+        });
+    }
+
+    public void removeTorchStateListener(TorchStateListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Turn the torch on at {@code strengthLevel}. With strength support this is a single
+     * turnOnTorchWithStrengthLevel call; nothing is sent if the hardware is already there.
+     */
+    public void requestOn(String cameraId, int strengthLevel, boolean strengthSupported,
+                          @Nullable TorchStateListener origin, @Nullable Callback callback) {
+        strengthCoalescer.reset(strengthSupported ? strengthLevel : StrengthCoalescer.NONE);
+        enqueue(() -> apply(cameraId, true, strengthLevel, strengthSupported, origin), callback);
+    }
+
+    public void requestOff(String cameraId, @Nullable TorchStateListener origin, @Nullable Callback callback) {
+        // Drop any pending slider level so a late drain can't turn the torch back on
+        strengthCoalescer.reset(StrengthCoalescer.NONE);
+        enqueue(() -> apply(cameraId, false, StrengthCoalescer.NONE, false, origin), callback);
+    }
+
+    /**
+     * Slider path: latest-wins, rate-limited strength update. Intermediate levels superseded
+     * before the next drain, and levels equal to the last applied one, never reach the HAL.
+     */
+    public void submitStrength(String cameraId, int strengthLevel, @Nullable TorchStateListener origin) {
+        coalescedCameraId = cameraId;
+        coalescedOrigin = origin;
+        long delayMs = strengthCoalescer.offer(strengthLevel, SystemClock.uptimeMillis());
+        if (delayMs != StrengthCoalescer.NO_DRAIN) {
+            worker.postDelayed(this::drainStrength, delayMs);
+        }
+    }
+
+    private void drainStrength() {
+        int level = strengthCoalescer.take(SystemClock.uptimeMillis());
+        if (level == StrengthCoalescer.NONE || (hardwareKnown && !hardwareOn)) {
+            return; // Nothing new, or the torch went off since the drag started
+        }
+        try {
+            apply(coalescedCameraId, true, level, true, coalescedOrigin);
+        } catch (Exception e) {
+            Log.e(TAG, "Slider strength update failed: " + e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Worker thread only
+    private void apply(String cameraId, boolean wantOn, int level, boolean strengthSupported,
+                       @Nullable TorchStateListener origin) throws CameraAccessException {
+        TorchPlanner.Step step = TorchPlanner.plan(hardwareKnown, hardwareOn, hardwareLevel,
+                wantOn, level, strengthSupported);
+        boolean wasOn = hardwareKnown && hardwareOn;
+        switch (step) {
+            case SET_ON:
+                TorchController.setOn(cameraManager, cameraId);
+                recordHardware(true, StrengthCoalescer.NONE);
+                break;
+            case SET_OFF:
+                TorchController.setOff(cameraManager, cameraId);
+                recordHardware(false, StrengthCoalescer.NONE);
+                break;
+            case SET_STRENGTH:
+                TorchController.setStrength(cameraManager, cameraId, level);
+                recordHardware(true, level);
+                break;
+            case NONE:
+            default:
+                return;
+        }
+        if (!wasOn && step != TorchPlanner.Step.SET_OFF) {
+            StartupMetrics.onLightCommanded(); // Before the torch callback confirms it (same thread)
+        }
+        driveCompanions(step, level, wasOn);
+        // Recorded before the torch callback arrives, so the callback itself won't dispatch again
+        if (cameraId.equals(boundCameraId)) {
+            dispatch(hardwareOn, hardwareLevel, origin);
+        }
+    }
+
+    // Worker thread only. Best effort: many devices can't light two torches at once.
+    private void driveCompanions(TorchPlanner.Step step, int level, boolean wasOn) {
+        for (FlashUnit unit : companionUnits) {
+            try {
+                if (step == TorchPlanner.Step.SET_OFF) {
+                    TorchController.setOff(cameraManager, unit.cameraId);
+                } else if (step == TorchPlanner.Step.SET_STRENGTH && unit.supportsStrength) {
+                    // Same relative brightness on a unit with a different strength range
+                    float intensity = (float) level / primaryMaxLevel;
+                    TorchController.setStrength(cameraManager, unit.cameraId, TorchStrength.toLevel(intensity, unit.maxLevel));
+                } else if (!wasOn) {
+                    TorchController.setOn(cameraManager, unit.cameraId);
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Companion flash unit " + unit.cameraId + " failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void recordHardware(boolean on, int level) {
+        hardwareKnown = true;
+        hardwareOn = on;
+        hardwareLevel = level;
+    }
+
+    // Worker thread (torch callback handler)
+    private void onHardwareReport(boolean on, int level) {
+        StartupMetrics.onTorchReported(on);
+        EventTracer.trace(EventTracer.TORCH_REPORTED, EventTracer.flag(on), level);
+        boolean changed = !hardwareKnown || hardwareOn != on || hardwareLevel != level;
+        recordHardware(on, level);
+        if (!on) {
+            strengthCoalescer.reset(StrengthCoalescer.NONE);
+        }
+        if (changed) {
+            dispatch(on, level, null);
+        }
+    }
+
+    private void dispatch(boolean on, int level, @Nullable TorchStateListener origin) {
+        if (listeners.isEmpty()) return;
+        mainHandler.post(() -> {
+            for (TorchStateListener listener : listeners) {
+                if (listener != origin) {
+                    listener.onTorchStateChanged(on, level);
+                }
+            }
+        });
+    }
+
+    private void enqueue(TorchCall call, @Nullable Callback callback) {
+        worker.post(() -> {
+            Exception error = null;
+            try {
+                call.run();
+            } catch (Exception e) {
+                // Covers CameraAccessException as well as emulators / devices without a camera service
+                Log.e(TAG, "Torch command failed: " + e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+                error = e;
+            }
+            if (callback != null) {
+                final Exception result = error;
+                mainHandler.post(() -> callback.onResult(result == null, result));
+            }
+        });
+    }
+}
@@ -0,0 +1,214 @@
+package com.walklight.safety;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ServiceInfo;
+import android.os.IBinder;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.ServiceCompat;
+import androidx.core.content.ContextCompat;
+
+/**
+ * Headless torch session. When the app is backgrounded or exited with "keep light on", MainActivity
+ * hands the lit torch over to this foreground service so the activity (sliders, switches, sheets)
+ * can be destroyed and reclaimed while the light stays on. The notification offers Off and
+ * dimmer/brighter actions; all commands still go through TorchExecutor.
+ */
+public class TorchService extends Service {
+    private static final String TAG = "TorchService";
+    private static final String CHANNEL_ID = "torch_session";
+    private static final int NOTIFICATION_ID = 1;
+
+    private static final String ACTION_HOLD = "com.walklight.safety.action.HOLD_TORCH";
+    private static final String ACTION_OFF = "com.walklight.safety.action.TORCH_OFF";
+    private static final String ACTION_DIMMER = "com.walklight.safety.action.TORCH_DIMMER";
+    private static final String ACTION_BRIGHTER = "com.walklight.safety.action.TORCH_BRIGHTER";
+
+    private static final String EXTRA_CAMERA_ID = "camera_id";
+    private static final String EXTRA_MAX_LEVEL = "max_level";
+    private static final String EXTRA_SUPPORTS_STRENGTH = "supports_strength";
+    private static final String EXTRA_INTENSITY = "intensity";
+
+    // Set as soon as a hand-off is requested, so the activity's onDestroy doesn't race onStartCommand
+    private static volatile boolean sessionHeld = false;
+
+    private TorchExecutor torchExecutor;
+    private String cameraId;
+    private int maxLevel = TorchCapabilities.DEFAULT_MAX_LEVEL;
+    private boolean supportsStrength;
+    private float intensity = SliderRoles.MAX;
+    private float intensityStep;
+    private final TorchExecutor.TorchStateListener torchStateListener = (on, level) -> {
+        if (!on) {
+            // Switched off elsewhere (tile, activity, Quick Settings, camera opened) - nothing left to hold
+            stopSession();
+        } else if (level != StrengthCoalescer.NONE && cameraId != null) {
+            // Intensity tile - keep the notification text in step
+            intensity = (float) level / maxLevel;
+            notifySession();
+        }
+    };
+
+    /**
+     * Hand the lit torch to the service. Must be called while the app may still start foreground
+     * services (visible activity); returns false if the system refused, and the caller keeps ownership.
+     */
+    public static boolean hold(Context context, String cameraId, int maxLevel, boolean supportsStrength,
+                               float intensity) {
+        Intent intent = new Intent(context, TorchService.class)
+                .setAction(ACTION_HOLD)
+                .putExtra(EXTRA_CAMERA_ID, cameraId)
+                .putExtra(EXTRA_MAX_LEVEL, maxLevel)
+                .putExtra(EXTRA_SUPPORTS_STRENGTH, supportsStrength)
+                .putExtra(EXTRA_INTENSITY, intensity);
+        try {
+            ContextCompat.startForegroundService(context, intent);
+            sessionHeld = true;
+            return true;
+        } catch (IllegalStateException e) {
+            // ForegroundServiceStartNotAllowedException on API 31+ when already in the background
+            Log.w(TAG, "Torch hand-off refused: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** The activity is back in charge of the torch. Leaves the light as it is. */
+    public static void release(Context context) {
+        if (!sessionHeld) return;
+        sessionHeld = false;
+        context.stopService(new Intent(context, TorchService.class));
+    }
+
+    /** True while the service (not the activity) owns the lit torch. */
+    public static boolean isHoldingSession() {
+        return sessionHeld;
+    }
+
+    /** Tests: no hand-off left over from the previous test. */
+    @VisibleForTesting
+    static void reset() {
+        sessionHeld = false;
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        torchExecutor = TorchExecutor.get(this);
+        intensityStep = getResources().getInteger(R.integer.torch_intensity_step_percent) / 100f;
+        createChannel();
+    }
+
+    @Override
+    public int onStartCommand(@Nullable Intent intent, int flags, int startId) {
+        String action = intent != null ? intent.getAction() : null;
+        if (ACTION_HOLD.equals(action)) {
+            cameraId = intent.getStringExtra(EXTRA_CAMERA_ID);
+            maxLevel = intent.getIntExtra(EXTRA_MAX_LEVEL, TorchCapabilities.DEFAULT_MAX_LEVEL);
+            supportsStrength = intent.getBooleanExtra(EXTRA_SUPPORTS_STRENGTH, false);
+            intensity = intent.getFloatExtra(EXTRA_INTENSITY, SliderRoles.MAX);
+            sessionHeld = true;
+            // startForeground must be called for every startForegroundService()
+            ServiceCompat.startForeground(this, NOTIFICATION_ID, buildNotification(),
+                    ServiceInfo.FOREGROUND_SERVICE_TYPE_SPECIAL_USE);
+            torchExecutor.removeTorchStateListener(torchStateListener);
+            torchExecutor.addTorchStateListener(torchStateListener);
+        } else if (cameraId == null) {
+            // Notification action after the session was lost (process restarted) - nothing to drive
+            stopSession();
+        } else if (ACTION_OFF.equals(action)) {
+            torchExecutor.requestOff(cameraId, torchStateListener, null);
+            stopSession();
+        } else if (ACTION_DIMMER.equals(action)) {
+            setIntensity(intensity - intensityStep);
+        } else if (ACTION_BRIGHTER.equals(action)) {
+            setIntensity(intensity + intensityStep);
+        }
+        // The torch goes off with the process, so there is nothing to restart into
+        return START_NOT_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        torchExecutor.removeTorchStateListener(torchStateListener);
+        sessionHeld = false;
+        super.onDestroy();
+    }
+
+    @Nullable
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    private void setIntensity(float newIntensity) {
+        intensity = Math.max(SliderRoles.MIN, Math.min(SliderRoles.MAX, newIntensity));
+        torchExecutor.requestOn(cameraId, TorchStrength.toLevel(intensity, maxLevel), supportsStrength,
+                torchStateListener, null);
+        // MainActivity and the next torch-first start pick this up
+        TorchStartup.saveIntensity(this, intensity);
+        notifySession();
+    }
+
+    private void notifySession() {
+        NotificationManager manager = getSystemService(NotificationManager.class);
+        if (manager != null) {
+            manager.notify(NOTIFICATION_ID, buildNotification());
+        }
+    }
+
+    private void stopSession() {
+        sessionHeld = false;
+        ServiceCompat.stopForeground(this, ServiceCompat.STOP_FOREGROUND_REMOVE);
+        stopSelf();
+    }
+
+    private void createChannel() {
+        NotificationChannel channel = new NotificationChannel(CHANNEL_ID,
+                getString(R.string.torch_notification_channel), NotificationManager.IMPORTANCE_LOW);
+        channel.setShowBadge(false);
+        NotificationManager manager = getSystemService(NotificationManager.class);
+        if (manager != null) {
+            manager.createNotificationChannel(channel);
+        }
+    }
+
+    private Notification buildNotification() {
+        Intent openApp = new Intent(this, MainActivity.class)
+                .setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        PendingIntent contentIntent = PendingIntent.getActivity(this, 0, openApp,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_flashlight_24)
+                .setContentTitle(getString(R.string.torch_notification_title))
+                .setContentIntent(contentIntent)
+                .setOngoing(true)
+                .setSilent(true)
+                .setCategory(NotificationCompat.CATEGORY_SERVICE)
+                .setForegroundServiceBehavior(NotificationCompat.FOREGROUND_SERVICE_IMMEDIATE)
+                .addAction(0, getString(R.string.turn_off_flashlight), actionIntent(ACTION_OFF));
+        if (supportsStrength) {
+            builder.setContentText(getString(R.string.torch_notification_intensity, Math.round(intensity * 100)))
+                    .addAction(0, getString(R.string.torch_notification_dimmer), actionIntent(ACTION_DIMMER))
+                    .addAction(0, getString(R.string.torch_notification_brighter), actionIntent(ACTION_BRIGHTER));
+        } else {
+            builder.setContentText(getString(R.string.torch_notification_open));
+        }
+        return builder.build();
+    }
+
+    private PendingIntent actionIntent(String action) {
+        Intent intent = new Intent(this, TorchService.class).setAction(action);
+        return PendingIntent.getService(this, action.hashCode(), intent,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+}
@@ -0,0 +1,62 @@
+package com.walklight.safety;
+
+import android.content.Context;
+import android.hardware.camera2.CameraManager;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Process-scoped torch session: what MainActivity knows about the light, kept outside the
+ * activity so a recreated one (theme, locale, density changes...) binds to it in O(1) instead of
+ * re-reading the capability cache, revalidating against cameraserver and re-commanding the LED.
+ * Only lost with the process - then the saved instance state path in MainActivity takes over.
+ * Main thread only.
+ */
+public final class TorchSession {
+    private static TorchSession instance;
+
+    public final TorchExecutor executor;
+    @Nullable public final CameraManager cameraManager;
+    /** OFF / ON(level) / SUSPENDED / RESTORING, shared by recreated MainActivity instances (reconciled on fresh launch) */
+    public final TorchStateMachine torchState = new TorchStateMachine();
+
+    // Resolved once per process: from the cache, then revalidated in the background
+    @Nullable TorchCapabilities capabilities;
+
+    // Last values applied by the UI (not read back from sliders)
+    float ledIntensity = 1.0f;
+    float screenBrightness = 1.0f;
+    boolean syncEnabled;
+    /** Values of the LED / screen / synced / screen-only slider roles */
+    final SliderRoles sliderRoles = new SliderRoles();
+
+    private boolean bound;
+
+    private TorchSession(Context appContext) {
+        executor = TorchExecutor.get(appContext);
+        cameraManager = executor.getCameraManager();
+    }
+
+    public static TorchSession get(Context context) {
+        if (instance == null) {
+            instance = new TorchSession(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /** Tests: the next get() starts a new session (on the current TorchExecutor). */
+    @VisibleForTesting
+    static void reset() {
+        instance = null;
+    }
+
+    /** True once an activity has populated the session in this process. */
+    boolean isBound() {
+        return bound;
+    }
+
+    void markBound() {
+        bound = true;
+    }
+}
@@ -0,0 +1,115 @@
+package com.walklight.safety;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * Torch-first cold start. {@link #prewarm} (Application.onCreate) reads the capability cache and
+ * the last LED intensity on the torch thread; {@link #lightEarly} (top of MainActivity.onCreate,
+ * before inflation) queues the ON command behind it and returns its intensity. MainActivity then
+ * attaches to the running torch at that intensity instead of starting it.
+ */
+public final class TorchStartup {
+    private static final String PREFS = "walklight_state";
+    private static final String KEY_LAST_LED_INTENSITY = "last_led_intensity";
+    private static final float DEFAULT_INTENSITY = 1.0f; // Matches the slider XML default
+    /** lightEarly() queued nothing (torch-first start disabled) */
+    static final float NO_EARLY_LIGHT = -1f;
+
+    // Written on the torch thread by prewarm, read there by lightEarly (same ordered queue)
+    private static TorchCapabilities cachedCapabilities;
+    // Loaded by prewarm, or by lightEarly on the main thread if it gets there first
+    private static volatile float startIntensity = DEFAULT_INTENSITY;
+    private static volatile boolean intensityLoaded;
+
+    /** Work that needs the flash unit, run on the torch thread. */
+    interface CapabilitiesTask {
+        void run(TorchCapabilities capabilities);
+    }
+
+    private TorchStartup() {}
+
+    static void prewarm(Context context) {
+        Context appContext = context.getApplicationContext();
+        TorchExecutor executor = TorchExecutor.get(appContext);
+        executor.post(() -> {
+            loadIntensity(appContext);
+            cachedCapabilities = CapabilityCache.read(appContext);
+            if (cachedCapabilities != null && cachedCapabilities.hasFlash) {
+                // Registers the torch callback now, so the time-to-light report isn't missed
+                executor.bindCapabilities(cachedCapabilities);
+            }
+        });
+    }
+
+    /**
+     * Fresh launch only, main thread. Queues ON at the last saved intensity and returns that
+     * intensity, fixed here for this launch; NO_EARLY_LIGHT when disabled. The torch thread still
+     * skips the command on first launch (nothing cached yet) or without flash - the activity's own
+     * ON at the returned intensity then does the work.
+     */
+    static float lightEarly(Context context) {
+        if (!context.getResources().getBoolean(R.bool.torch_first_startup)) {
+            return NO_EARLY_LIGHT;
+        }
+        TorchExecutor executor = TorchExecutor.get(context);
+        // Only touches disk if the prewarm hasn't read it yet
+        float intensity = loadIntensity(context.getApplicationContext());
+        executor.post(() -> {
+            TorchCapabilities capabilities = cachedCapabilities;
+            if (capabilities == null || !capabilities.hasFlash) {
+                return;
+            }
+            int level = TorchStrength.toLevel(intensity, capabilities.maxLevel);
+            executor.requestOn(capabilities.cameraId, level, capabilities.supportsStrength, null, null);
+        });
+        return intensity;
+    }
+
+    /**
+     * Run {@code task} on the torch thread with the cached capabilities, discovering (and caching)
+     * them if this device has never been probed. For entry points that never inflate MainActivity.
+     */
+    static void withCapabilities(Context context, CapabilitiesTask task) {
+        Context appContext = context.getApplicationContext();
+        TorchExecutor executor = TorchExecutor.get(appContext);
+        executor.post(() -> {
+            TorchCapabilities capabilities = cachedCapabilities;
+            if (capabilities == null) {
+                capabilities = TorchCapabilities.discover(appContext, executor.getCameraManager());
+                CapabilityCache.write(appContext, capabilities);
+                if (capabilities.hasFlash) {
+                    executor.bindCapabilities(capabilities);
+                }
+                cachedCapabilities = capabilities;
+            }
+            task.run(capabilities);
+        });
+    }
+
+    /** Last saved LED intensity (what the torch-first start used, unless saved again since). */
+    static float getStartIntensity() {
+        return startIntensity;
+    }
+
+    static void saveIntensity(Context context, float intensity) {
+        synchronized (TorchStartup.class) {
+            // A load still in flight must not overwrite this with the old value
+            startIntensity = intensity;
+            intensityLoaded = true;
+        }
+        prefs(context).edit().putFloat(KEY_LAST_LED_INTENSITY, intensity).apply();
+    }
+
+    private static synchronized float loadIntensity(Context appContext) {
+        if (!intensityLoaded) {
+            startIntensity = prefs(appContext).getFloat(KEY_LAST_LED_INTENSITY, DEFAULT_INTENSITY);
+            intensityLoaded = true;
+        }
+        return startIntensity;
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,91 @@
+package com.walklight.safety;
+
+import android.content.Context;
+import android.graphics.drawable.Icon;
+import android.os.Build;
+import android.service.quicksettings.Tile;
+import android.service.quicksettings.TileService;
+
+/**
+ * Quick Settings tile: toggles the torch without launching MainActivity (no layout inflation).
+ * Uses the cached capabilities and last saved intensity, and the same TorchExecutor /
+ * TorchController path as the app. While the shade is open the tile follows torch callbacks.
+ */
+public class TorchTileService extends TileService {
+
+    protected TorchExecutor torchExecutor;
+    protected final TorchExecutor.TorchStateListener torchStateListener = (on, level) -> refreshTile();
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        torchExecutor = TorchExecutor.get(this);
+    }
+
+    @Override
+    public void onStartListening() {
+        super.onStartListening();
+        torchExecutor.addTorchStateListener(torchStateListener);
+        refreshTile();
+    }
+
+    @Override
+    public void onStopListening() {
+        torchExecutor.removeTorchStateListener(torchStateListener);
+        super.onStopListening();
+    }
+
+    @Override
+    public void onClick() {
+        boolean turnOn = !torchExecutor.isTorchOn();
+        Context appContext = getApplicationContext();
+        TorchStartup.withCapabilities(this, capabilities -> {
+            if (!capabilities.hasFlash) return;
+            if (turnOn) {
+                lightUp(appContext, capabilities, TorchStartup.getStartIntensity());
+            } else {
+                torchExecutor.requestOff(capabilities.cameraId, torchStateListener, (success, error) -> refreshTile());
+            }
+        });
+    }
+
+    /**
+     * Torch thread. Lights the LED and hands the session to TorchService, so the light
+     * (and its off switch) outlives this tile's binding.
+     */
+    protected void lightUp(Context appContext, TorchCapabilities capabilities, float intensity) {
+        int level = TorchStrength.toLevel(intensity, capabilities.maxLevel);
+        torchExecutor.requestOn(capabilities.cameraId, level, capabilities.supportsStrength, torchStateListener,
+                (success, error) -> {
+                    refreshTile();
+                    if (success && !TorchService.isHoldingSession()
+                            && !TorchService.hold(appContext, capabilities.cameraId, capabilities.maxLevel,
+                                    capabilities.supportsStrength, intensity)) {
+                        // Refused (background start limits) - don't leave a light only the tile can reach
+                        torchExecutor.requestOff(capabilities.cameraId, torchStateListener,
+                                (offSuccess, offError) -> refreshTile());
+                    }
+                });
+    }
+
+    protected void refreshTile() {
+        Tile tile = getQsTile();
+        if (tile == null) return; // Not listening
+        boolean on = torchExecutor.isTorchOn();
+        tile.setState(on ? Tile.STATE_ACTIVE : Tile.STATE_INACTIVE);
+        tile.setIcon(Icon.createWithResource(this, R.drawable.ic_flashlight_24));
+        tile.setLabel(getString(label()));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            tile.setSubtitle(subtitle(on));
+        }
+        tile.updateTile();
+    }
+
+    protected int label() {
+        return R.string.tile_torch_label;
+    }
+
+    protected CharSequence subtitle(boolean on) {
+        return getString(on ? R.string.tile_state_on : R.string.tile_state_off);
+    }
+}
@@ -0,0 +1,91 @@
+package com.walklight.safety;
+
+import android.app.PendingIntent;
+import android.appwidget.AppWidgetManager;
+import android.appwidget.AppWidgetProvider;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+import android.widget.RemoteViews;
+
+/**
+ * Home-screen widget: current light state plus Off / 30% / 100% buttons. Buttons broadcast to
+ * TorchActionReceiver, so the torch is driven without launching MainActivity.
+ * Torch state changes (slider drags included) are batched: at most one RemoteViews push per
+ * widget_update_batch_ms, always showing the latest state.
+ */
+public class TorchWidgetProvider extends AppWidgetProvider {
+    private static final int[] PRESET_PERCENTS = {30, 100};
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static Context appContext;
+    private static boolean updateScheduled = false;
+    private static final Runnable flushUpdate = () -> {
+        updateScheduled = false;
+        pushUpdate(appContext);
+    };
+
+    /**
+     * Follow torch state for the lifetime of the process (Application.onCreate). Cheap when no
+     * widget is placed: the batch flush is the only place that asks AppWidgetManager.
+     */
+    static void attach(Context context) {
+        appContext = context.getApplicationContext();
+        TorchExecutor.get(appContext).addTorchStateListener((on, level) -> scheduleUpdate());
+    }
+
+    // Main thread
+    private static void scheduleUpdate() {
+        if (updateScheduled || appContext == null) return;
+        updateScheduled = true;
+        mainHandler.postDelayed(flushUpdate,
+                appContext.getResources().getInteger(R.integer.widget_update_batch_ms));
+    }
+
+    @Override
+    public void onUpdate(Context context, AppWidgetManager manager, int[] appWidgetIds) {
+        RemoteViews views = buildViews(context);
+        for (int id : appWidgetIds) {
+            manager.updateAppWidget(id, views);
+        }
+    }
+
+    private static void pushUpdate(Context context) {
+        AppWidgetManager manager = AppWidgetManager.getInstance(context);
+        ComponentName widget = new ComponentName(context, TorchWidgetProvider.class);
+        if (manager.getAppWidgetIds(widget).length == 0) return;
+        manager.updateAppWidget(widget, buildViews(context));
+    }
+
+    private static RemoteViews buildViews(Context context) {
+        TorchExecutor executor = TorchExecutor.get(context);
+        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_torch);
+
+        boolean on = executor.isTorchOn();
+        int level = executor.getTorchLevel();
+        String state;
+        if (!on) {
+            state = context.getString(R.string.tile_state_off);
+        } else if (level != StrengthCoalescer.NONE) {
+            state = context.getString(R.string.torch_notification_intensity,
+                    Math.round(100f * level / executor.getMaxLevel()));
+        } else {
+            state = context.getString(R.string.tile_state_on);
+        }
+        views.setTextViewText(R.id.widgetState, state);
+
+        views.setOnClickPendingIntent(R.id.widgetState, actionIntent(context, TorchActions.ACTION_TOGGLE, 0));
+        views.setOnClickPendingIntent(R.id.widgetOff, actionIntent(context, TorchActions.ACTION_OFF, 0));
+        views.setOnClickPendingIntent(R.id.widgetLow, actionIntent(context, TorchActions.ACTION_ON, PRESET_PERCENTS[0]));
+        views.setOnClickPendingIntent(R.id.widgetFull, actionIntent(context, TorchActions.ACTION_ON, PRESET_PERCENTS[1]));
+        return views;
+    }
+
+    private static PendingIntent actionIntent(Context context, String action, int percent) {
+        Intent intent = TorchActions.intent(context, TorchActionReceiver.class, action, percent);
+        return PendingIntent.getBroadcast(context, (action + percent).hashCode(), intent,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+}
@@ -0,0 +1,56 @@
+package com.walklight.safety;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Persisted {@link UiSnapshot} of the main screen. Read ahead from Application.onCreate so
+ * MainActivity can apply it in onCreate, before the first draw; written from onStop on a
+ * background thread with commit() - apply() would make the stop wait on QueuedWork instead.
+ */
+public final class UiStateStore {
+    private static final String TAG = "UiStateStore";
+    private static final String PREFS = "walklight_state";
+    private static final String KEY_UI_SNAPSHOT = "ui_snapshot";
+
+    private static volatile UiSnapshot snapshot;
+    private static volatile boolean loaded;
+
+    private UiStateStore() {}
+
+    static void prewarm(Context context) {
+        Context appContext = context.getApplicationContext();
+        BackgroundExecutor.execute(() -> load(appContext));
+    }
+
+    /** Last saved snapshot, or null on first launch. Only touches disk if the prewarm hasn't finished. */
+    @Nullable
+    static UiSnapshot get(Context context) {
+        if (!loaded) {
+            load(context.getApplicationContext());
+        }
+        return snapshot;
+    }
+
+    static void save(Context context, UiSnapshot state) {
+        snapshot = state;
+        loaded = true;
+        Context appContext = context.getApplicationContext();
+        // After any pending prewarm on the same ordered thread, so the read never overtakes this save
+        BackgroundExecutor.execute(() -> prefs(appContext).edit().putString(KEY_UI_SNAPSHOT, state.encode()).commit());
+    }
+
+    private static synchronized void load(Context appContext) {
+        if (loaded) return;
+        snapshot = UiSnapshot.parse(prefs(appContext).getString(KEY_UI_SNAPSHOT, null));
+        loaded = true;
+        Log.d(TAG, "UI snapshot loaded: " + snapshot);
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,24 @@
+package com.walklight.safety;
+
+import android.app.Application;
+
+/**
+ * Process entry point. Starts the torch thread and loads cached camera capabilities
+ * and the last UI snapshot before any activity inflates, so MainActivity can light the LED
+ * first thing and draw its first frame in its final state.
+ * Also keeps the home-screen widget in step with the torch and the companion app cache
+ * and launchable-app index in step with package updates.
+ */
+public class WalklightApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        TorchStartup.prewarm(this);
+        UiStateStore.prewarm(this);
+        SettingsStore.init(this);
+        TorchWidgetProvider.attach(this);
+        CompanionAppCache.registerPackageReceiver(this);
+        LaunchableAppIndex.init(this);
+    }
+}
@@ -0,0 +1,120 @@
+package com.walklight.safety;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.hardware.camera2.CameraManager;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+
+import com.google.android.material.slider.Slider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Real layout passes of the main window per user interaction, as counted by ControlsRenderer
+ * from MainActivity's OnGlobalLayoutListener. Drives the real MainActivity (see TorchTestHarness)
+ * and lets every frame run on Robolectric's paused clock before reading the counters.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class) // No torch prewarm / package receivers
+public class ControlsLayoutPassTest {
+
+    // Long enough for the torch result and every frame it schedules
+    private static final long SETTLE_MS = 100;
+    // A toggle changes the slider mode once - one traversal applies all of it
+    private static final int TOGGLE_LAYOUT_PASSES = 1;
+    // Visible controls for the new mode: sync controls visibility + slider mode
+    private static final int TOGGLE_VIEW_WRITES = 2;
+    // Moving a slider only redraws it; the LED level goes to the torch thread
+    private static final int LED_DRAG_LAYOUT_PASSES = 0;
+
+    private CameraManager cameraManager;
+    private MainActivity activity;
+    private ControlsRenderer renderer;
+
+    @Before
+    public void setUp() throws Exception {
+        cameraManager = TorchTestHarness.setUp(false);
+        activity = Robolectric.buildActivity(MainActivity.class).setup().get();
+        settle();
+        assertTrue("Auto-start lit the torch", activity.isFlashlightCurrentlyOn());
+        renderer = activity.controlsRenderer();
+        assertEquals(UiSnapshot.MODE_INDEPENDENT, renderer.mode());
+    }
+
+    @After
+    public void tearDown() {
+        TorchTestHarness.reset();
+    }
+
+    @Test
+    public void toggleOff_takesOneLayoutPass() throws Exception {
+        activity.findViewById(R.id.lightToggle).performClick();
+        settle();
+
+        assertFalse(shadowOf(cameraManager).getTorchMode(TorchTestHarness.CAMERA_ID));
+        assertEquals(UiSnapshot.MODE_SCREEN_ONLY, renderer.mode());
+        assertEquals(TOGGLE_VIEW_WRITES, renderer.viewWrites());
+        assertEquals(TOGGLE_LAYOUT_PASSES, renderer.layoutPasses());
+    }
+
+    @Test
+    public void toggleOn_takesOneLayoutPass() throws Exception {
+        activity.findViewById(R.id.lightToggle).performClick();
+        settle();
+
+        activity.findViewById(R.id.lightToggle).performClick();
+        settle();
+
+        assertTrue(shadowOf(cameraManager).getTorchMode(TorchTestHarness.CAMERA_ID));
+        assertEquals(UiSnapshot.MODE_INDEPENDENT, renderer.mode());
+        assertEquals(TOGGLE_VIEW_WRITES, renderer.viewWrites());
+        assertEquals(TOGGLE_LAYOUT_PASSES, renderer.layoutPasses());
+    }
+
+    @Test
+    public void ledSliderDrag_takesNoLayoutPass() throws Exception {
+        // Independent mode: the primary slider plays the LED role
+        Slider slider = activity.findViewById(R.id.primarySlider);
+        float before = slider.getValue();
+        drag(slider, 0.8f, 0.3f);
+        settle();
+
+        assertNotEquals("The drag moved the slider", before, slider.getValue(), 0.01f);
+        assertEquals(0, renderer.viewWrites());
+        assertEquals(LED_DRAG_LAYOUT_PASSES, renderer.layoutPasses());
+    }
+
+    // ================================
+    // HELPERS
+    // ================================
+
+    private void settle() throws InterruptedException {
+        TorchTestHarness.drainTorchThread(activity);
+        TorchTestHarness.advance(SETTLE_MS);
+    }
+
+    /** Touch down at {@code from} of the slider's width, move to {@code to}, lift. */
+    private static void drag(Slider slider, float from, float to) {
+        float y = slider.getHeight() / 2f;
+        long down = SystemClock.uptimeMillis();
+        touch(slider, down, down, MotionEvent.ACTION_DOWN, slider.getWidth() * from, y);
+        touch(slider, down, down + 16, MotionEvent.ACTION_MOVE, slider.getWidth() * (from + to) / 2, y);
+        touch(slider, down, down + 32, MotionEvent.ACTION_MOVE, slider.getWidth() * to, y);
+        touch(slider, down, down + 48, MotionEvent.ACTION_UP, slider.getWidth() * to, y);
+    }
+
+    private static void touch(Slider slider, long downTime, long eventTime, int action, float x, float y) {
+        MotionEvent event = MotionEvent.obtain(downTime, eventTime, action, x, y, 0);
+        slider.dispatchTouchEvent(event);
+        event.recycle();
+    }
+}
@@ -0,0 +1,67 @@
+package com.walklight.safety;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Unit tests for the ring-buffer event tracer
+ */
+public class EventTracerTest {
+
+    private static String dump(EventTracer tracer) {
+        StringWriter out = new StringWriter();
+        PrintWriter writer = new PrintWriter(out);
+        tracer.dumpTo("", writer);
+        writer.flush();
+        return out.toString();
+    }
+
+    @Test
+    public void dump_listsEventsOldestFirst() {
+        EventTracer tracer = new EventTracer(8);
+        tracer.record(EventTracer.REQUEST_ON, 42, 0, 1_000_000L);
+        tracer.record(EventTracer.TORCH_SET_STRENGTH, 42, 0, 3_000_000L);
+
+        String text = dump(tracer);
+        assertTrue(text.contains("2 of 2 events"));
+        assertTrue(text.indexOf("REQUEST_ON") < text.indexOf("TORCH_SET_STRENGTH"));
+        assertTrue(text.contains("+    2.000ms"));
+    }
+
+    @Test
+    public void fullBuffer_keepsOnlyNewestEvents() {
+        EventTracer tracer = new EventTracer(4);
+        for (int i = 0; i < 10; i++) {
+            tracer.record(EventTracer.TORCH_SET_STRENGTH, i, 0, i * 1_000_000L);
+        }
+
+        String text = dump(tracer);
+        assertTrue(text.contains("4 of 10 events"));
+        assertFalse(text.contains("TORCH_SET_STRENGTH   5 0"));
+        assertTrue(text.contains("TORCH_SET_STRENGTH   6 0"));
+        assertTrue(text.contains("TORCH_SET_STRENGTH   9 0"));
+    }
+
+    @Test
+    public void lastEvent_hasItsName() {
+        // NAMES is indexed by event id - a missing entry shifts every later name
+        assertEquals("SNAPSHOT_APPLIED", EventTracer.nameOf(EventTracer.SNAPSHOT_APPLIED));
+        assertEquals("MODE_SHOWN", EventTracer.nameOf(EventTracer.MODE_SHOWN));
+    }
+
+    @Test
+    public void percent_roundsToWholePercent() {
+        assertEquals(50, EventTracer.percent(0.5f));
+        assertEquals(10, EventTracer.percent(0.1f));
+        assertEquals(100, EventTracer.percent(1.0f));
+    }
+
+    @Test
+    public void unknownEvent_isStillDumped() {
+        assertEquals("EVENT_99", EventTracer.nameOf(99));
+    }
+}
@@ -0,0 +1,62 @@
+package com.walklight.safety;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for picking the best torch among several flash units
+ */
+public class FlashUnitRankingTest {
+
+    private static final int BACK = 1;  // CameraCharacteristics.LENS_FACING_BACK
+    private static final int FRONT = 0; // CameraCharacteristics.LENS_FACING_FRONT
+
+    @Test
+    public void strengthControl_beatsPlainFlash() {
+        List<FlashUnit> units = rank(
+                new FlashUnit("0", 100, 100, false, BACK),
+                new FlashUnit("2", 5, 3, true, BACK));
+        assertEquals("2", units.get(0).cameraId);
+    }
+
+    @Test
+    public void widerStrengthRange_wins() {
+        List<FlashUnit> units = rank(
+                new FlashUnit("0", 5, 3, true, BACK),
+                new FlashUnit("3", 99, 50, true, BACK));
+        assertEquals("3", units.get(0).cameraId);
+    }
+
+    @Test
+    public void backFacing_beatsFrontFacing() {
+        List<FlashUnit> units = rank(
+                new FlashUnit("1", 100, 100, false, FRONT),
+                new FlashUnit("0", 100, 100, false, BACK));
+        assertEquals("0", units.get(0).cameraId);
+    }
+
+    @Test
+    public void equalUnits_keepHalOrder() {
+        List<FlashUnit> units = rank(
+                new FlashUnit("0", 100, 100, false, BACK),
+                new FlashUnit("4", 100, 100, false, BACK));
+        assertEquals("0", units.get(0).cameraId);
+    }
+
+    @Test
+    public void cacheEntry_roundTrips() {
+        FlashUnit unit = new FlashUnit("5", 99, 40, true, BACK);
+        assertEquals(unit.serialize(), FlashUnit.parse(unit.serialize()).serialize());
+    }
+
+    private static List<FlashUnit> rank(FlashUnit... units) {
+        List<FlashUnit> list = new ArrayList<>(Arrays.asList(units));
+        list.sort(FlashUnit.RANKING);
+        return list;
+    }
+}
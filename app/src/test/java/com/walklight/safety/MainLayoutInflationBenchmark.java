@@ -0,0 +1,158 @@
+package com.walklight.safety;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import android.app.Application;
+import android.content.Context;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.google.android.material.slider.Slider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLog;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Inflation benchmark for the main screen: the flat activity_main.xml against the nested layout
+ * it replaced, through the same harness. Logs view count, depth, slider count, median inflate
+ * time and median first measure + layout pass at phone size, and fails if the flat layout stops
+ * being smaller and shallower. Results are recorded in MAIN_LAYOUT_BENCHMARK.md.
+ *
+ * The baseline (activity_main_nested) is a debug-only resource, so this skips on release variants.
+ * Times come from Robolectric's JVM, so compare them with each other, not with a device.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class) // No torch prewarm / package receivers
+public class MainLayoutInflationBenchmark {
+
+    private static final String TAG = "MainLayoutBenchmark";
+    private static final int WARMUP = 3;
+    private static final int RUNS = 15;
+    private static final int WIDTH_PX = 1080;
+    private static final int HEIGHT_PX = 2400;
+
+    private Context context;
+
+    /** Structure and medians over RUNS inflations of one layout. */
+    private static final class Result {
+        int views;
+        int depth;
+        int sliders;
+        long inflateNs;
+        long measureLayoutNs;
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "views=%d depth=%d sliders=%d inflate=%.3fms measureLayout=%.3fms",
+                    views, depth, sliders, inflateNs / 1_000_000.0, measureLayoutNs / 1_000_000.0);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        ShadowLog.stream = System.out; // The numbers are the point of the run
+        context = new ContextThemeWrapper(RuntimeEnvironment.getApplication(), R.style.Theme_Flashlight);
+    }
+
+    @Test
+    public void flatLayout_inflatesFewerAndShallowerViews() {
+        // Looked up by name: R.layout.activity_main_nested only exists in debug
+        int baseline = context.getResources().getIdentifier("activity_main_nested", "layout", context.getPackageName());
+        assumeTrue("Baseline layout is debug-only", baseline != 0);
+
+        Result before = run(baseline);
+        Result after = run(R.layout.activity_main);
+        Log.i(TAG, "before (nested): " + before);
+        Log.i(TAG, "after  (flat):   " + after);
+
+        assertEquals("Four mode sliders before", 4, before.sliders);
+        assertEquals("Two role-bound sliders after", 2, after.sliders);
+        assertTrue("View count " + after.views + " vs " + before.views, after.views < before.views);
+        assertTrue("Depth " + after.depth + " vs " + before.depth, after.depth < before.depth);
+    }
+
+    private Result run(int layout) {
+        LayoutInflater inflater = LayoutInflater.from(context);
+        for (int i = 0; i < WARMUP; i++) {
+            measureAndLayout(inflater.inflate(layout, null, false));
+        }
+
+        long[] inflate = new long[RUNS];
+        long[] measureLayout = new long[RUNS];
+        View root = null;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            root = inflater.inflate(layout, null, false);
+            long inflated = System.nanoTime();
+            measureAndLayout(root);
+            inflate[i] = inflated - start;
+            measureLayout[i] = System.nanoTime() - inflated;
+        }
+
+        Result result = new Result();
+        result.views = countViews(root);
+        result.depth = depth(root);
+        result.sliders = countSliders(root);
+        result.inflateNs = median(inflate);
+        result.measureLayoutNs = median(measureLayout);
+        return result;
+    }
+
+    private static void measureAndLayout(View root) {
+        root.measure(View.MeasureSpec.makeMeasureSpec(WIDTH_PX, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT_PX, View.MeasureSpec.EXACTLY));
+        root.layout(0, 0, WIDTH_PX, HEIGHT_PX);
+    }
+
+    private static int countViews(View view) {
+        int count = 1;
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                count += countViews(group.getChildAt(i));
+            }
+        }
+        return count;
+    }
+
+    private static int depth(View view) {
+        int deepest = 0;
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                deepest = Math.max(deepest, depth(group.getChildAt(i)));
+            }
+        }
+        return deepest + 1;
+    }
+
+    private static int countSliders(View view) {
+        if (view instanceof Slider) return 1;
+        int count = 0;
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                count += countSliders(group.getChildAt(i));
+            }
+        }
+        return count;
+    }
+
+    private static long median(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,201 @@
+package com.walklight.safety;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.content.Intent;
+import android.hardware.camera2.CameraManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+/**
+ * Drives the real MainActivity through split-screen enter/exit (multi-window button tap, the
+ * window events and lifecycle callbacks the system delivers) on Robolectric's paused clock, with
+ * a shadow CameraManager behind TorchExecutor. Fails when a phase runs over its latency budget or
+ * the transition makes torch HAL calls - counted in TorchController, on the torch thread.
+ *
+ * "Keep light on when closed" is off, so a stop that isn't recognized as part of the transition
+ * suspends the light (and the resume restores it) - both show up as HAL calls.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class) // No torch prewarm / package receivers
+public class SplitScreenTransitionTest {
+
+    // Simulated system latency between our step and the window event it waits for
+    private static final long SYSTEM_STEP_MS = 40;
+    // Event-driven steps must follow their window event within this
+    private static final long PHASE_BUDGET_MS = SYSTEM_STEP_MS + 5;
+    // The light is on for the whole dance; any HAL call is redundant
+    private static final int TORCH_CALL_BUDGET = 0;
+
+    private CameraManager cameraManager;
+    private ActivityController<MainActivity> activityController;
+    private MainActivity activity;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue("Metrics are compiled out of release builds", SplitScreenMetrics.ENABLED);
+        cameraManager = TorchTestHarness.setUp(false);
+        SplitScreenMetrics.reset();
+
+        // Fresh launch: auto-start lights the torch
+        activityController = Robolectric.buildActivity(MainActivity.class).setup();
+        activity = activityController.get();
+        drainTorchThread();
+        assertTrue("Auto-start lit the torch", shadowOf(cameraManager).getTorchMode(TorchTestHarness.CAMERA_ID));
+        assertTrue(activity.isFlashlightCurrentlyOn());
+    }
+
+    @After
+    public void tearDown() {
+        TorchTestHarness.reset();
+    }
+
+    @Test
+    public void enter_launchesAdjacentAndCompletesOnMultiWindowChange() throws Exception {
+        tapMultiWindowButton();
+        // Window focus (if not already there) - the companion launches right away
+        activityController.windowFocusChanged(true);
+
+        Intent launched = shadowOf(activity).getNextStartedActivity();
+        assertNotNull("Companion app launched", launched);
+        assertTrue((launched.getFlags() & Intent.FLAG_ACTIVITY_LAUNCH_ADJACENT) != 0);
+
+        // System splits the screen: we're paused, then multi-window mode arrives
+        advance(SYSTEM_STEP_MS);
+        activityController.pause();
+        multiWindowChanged(true);
+        drainTorchThread();
+
+        SplitScreenMetrics.Transition transition = SplitScreenMetrics.last();
+        assertTrue(transition.entering);
+        assertTrue(transition.finished);
+        assertFalse("No timeout on the event path", transition.has(SplitScreenMetrics.TIMED_OUT));
+        assertPhaseWithin(transition, SplitScreenMetrics.TAP, SplitScreenMetrics.LAUNCH_ADJACENT, 5);
+        assertPhaseWithin(transition, SplitScreenMetrics.LAUNCH_ADJACENT, SplitScreenMetrics.DONE, PHASE_BUDGET_MS);
+        assertTorchCallsWithinBudget(transition);
+        assertTrue(activity.isFlashlightCurrentlyOn());
+    }
+
+    @Test
+    public void exit_bringsBackToFrontWhenTaskLeavesTopAndCompletesFullscreen() throws Exception {
+        multiWindowChanged(true);
+        tapMultiWindowButton();
+        assertNull("Waits for the window event, not a timer", shadowOf(activity).peekNextStartedActivity());
+
+        // moveTaskToBack: top-resumed lost, paused and stopped
+        advance(SYSTEM_STEP_MS);
+        activity.onTopResumedActivityChanged(false);
+        activityController.pause().stop();
+        Intent broughtBack = shadowOf(activity).getNextStartedActivity();
+        assertNotNull("Brought back to front", broughtBack);
+        assertEquals(MainActivity.class.getName(), broughtBack.getComponent().getClassName());
+
+        // Back in front, fullscreen
+        advance(SYSTEM_STEP_MS);
+        multiWindowChanged(false);
+        activityController.restart().resume();
+        drainTorchThread();
+
+        SplitScreenMetrics.Transition transition = SplitScreenMetrics.last();
+        assertFalse(transition.entering);
+        assertTrue(transition.finished);
+        assertFalse(transition.has(SplitScreenMetrics.TIMED_OUT));
+        assertPhaseWithin(transition, SplitScreenMetrics.MOVE_TO_BACK, SplitScreenMetrics.BRING_TO_FRONT, PHASE_BUDGET_MS);
+        assertPhaseWithin(transition, SplitScreenMetrics.BRING_TO_FRONT, SplitScreenMetrics.DONE, PHASE_BUDGET_MS);
+        assertTorchCallsWithinBudget(transition);
+        assertTrue(activity.isFlashlightCurrentlyOn());
+    }
+
+    @Test
+    public void exit_timesOutToBringToFrontWhenNoWindowEventArrives() {
+        multiWindowChanged(true);
+        tapMultiWindowButton();
+
+        int readyTimeoutMs = activity.getResources().getInteger(R.integer.split_ready_timeout_ms);
+        int settleTimeoutMs = activity.getResources().getInteger(R.integer.split_settle_timeout_ms);
+        advance(readyTimeoutMs);
+        assertNotNull("Safety net fired", shadowOf(activity).getNextStartedActivity());
+        advance(settleTimeoutMs);
+
+        SplitScreenMetrics.Transition transition = SplitScreenMetrics.last();
+        assertTrue(transition.finished);
+        assertTrue(transition.has(SplitScreenMetrics.TIMED_OUT));
+        assertEquals(readyTimeoutMs + settleTimeoutMs, transition.totalNs() / 1_000_000);
+    }
+
+    @Test
+    public void cancel_dropsPendingSteps() {
+        SplitScreenController controller = new SplitScreenController(activity);
+        int[] broughtBack = {0};
+        int[] completions = {0};
+        controller.exitSplitScreen(() -> {}, () -> broughtBack[0]++, () -> completions[0]++);
+        controller.cancel();
+
+        advance(10_000);
+        controller.onTopResumedActivityChanged(false);
+        assertEquals(0, broughtBack[0]);
+        assertEquals(0, completions[0]);
+        assertFalse(controller.isTransitioning());
+    }
+
+    @Test
+    public void torchCallsDuringTransition_areCounted() throws Exception {
+        tapMultiWindowButton();
+        activityController.windowFocusChanged(true);
+        // A torch command mid-transition (what a regression in the stop / resume path would send)
+        activity.findViewById(R.id.lightToggle).performClick();
+        drainTorchThread();
+        multiWindowChanged(true);
+
+        assertEquals("OFF reached TorchController", 1, SplitScreenMetrics.last().torchCalls);
+        activity.findViewById(R.id.lightToggle).performClick(); // After the transition - not counted
+        drainTorchThread();
+        assertEquals(1, SplitScreenMetrics.last().torchCalls);
+        assertTrue(shadowOf(cameraManager).getTorchMode(TorchTestHarness.CAMERA_ID));
+    }
+
+    // ================================
+    // HELPERS
+    // ================================
+
+    private void tapMultiWindowButton() {
+        activity.findViewById(R.id.multiWindowButton).performClick();
+    }
+
+    // What the system does when the window is split or goes back to fullscreen
+    private void multiWindowChanged(boolean on) {
+        shadowOf(activity).setInMultiWindowMode(on);
+        activity.onMultiWindowModeChanged(on);
+    }
+
+    private void drainTorchThread() throws InterruptedException {
+        TorchTestHarness.drainTorchThread(activity);
+    }
+
+    private static void advance(long ms) {
+        TorchTestHarness.advance(ms);
+    }
+
+    private static void assertPhaseWithin(SplitScreenMetrics.Transition transition, int from, int to, long budgetMs) {
+        long phaseNs = transition.phaseNs(from, to);
+        String phase = SplitScreenMetrics.nameOf(from) + " -> " + SplitScreenMetrics.nameOf(to);
+        assertTrue(phase + " not recorded", phaseNs >= 0);
+        assertTrue(phase + " took " + phaseNs / 1_000_000 + "ms, budget " + budgetMs + "ms",
+                phaseNs <= budgetMs * 1_000_000);
+    }
+
+    private static void assertTorchCallsWithinBudget(SplitScreenMetrics.Transition transition) {
+        assertTrue("Redundant torch HAL calls: " + transition.torchCalls,
+                transition.torchCalls <= TORCH_CALL_BUDGET);
+    }
+}
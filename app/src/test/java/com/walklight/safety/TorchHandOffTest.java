@@ -0,0 +1,82 @@
+package com.walklight.safety;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.content.ComponentName;
+import android.content.Intent;
+import android.hardware.camera2.CameraManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+/**
+ * "Keep light on when closed": the lit torch goes to TorchService while MainActivity is still
+ * visible (onPause), since from API 31 a stopped activity may not start a foreground service,
+ * and comes back to the activity on resume.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class) // No torch prewarm / package receivers
+public class TorchHandOffTest {
+
+    private CameraManager cameraManager;
+    private ActivityController<MainActivity> activityController;
+    private Application app;
+
+    @Before
+    public void setUp() throws Exception {
+        cameraManager = TorchTestHarness.setUp(true);
+        app = RuntimeEnvironment.getApplication();
+        activityController = Robolectric.buildActivity(MainActivity.class).setup();
+        TorchTestHarness.drainTorchThread(app);
+        assertTrue("Auto-start lit the torch", activityController.get().isFlashlightCurrentlyOn());
+        shadowOf(app).clearStartedServices();
+    }
+
+    @After
+    public void tearDown() {
+        TorchTestHarness.reset();
+    }
+
+    @Test
+    public void pause_handsTorchToServiceBeforeStop() throws Exception {
+        activityController.pause();
+
+        assertTrue("Held from onPause", TorchService.isHoldingSession());
+        assertStartedTorchService();
+
+        activityController.stop();
+        TorchTestHarness.drainTorchThread(app);
+        assertNull("No second hand-off from onStop", shadowOf(app).getNextStartedService());
+        assertTrue("Light stays on", shadowOf(cameraManager).getTorchMode(TorchTestHarness.CAMERA_ID));
+    }
+
+    @Test
+    public void resume_takesTorchBack() throws Exception {
+        activityController.pause();
+        assertStartedTorchService();
+
+        activityController.resume();
+        TorchTestHarness.drainTorchThread(app);
+
+        assertFalse(TorchService.isHoldingSession());
+        Intent stopped = shadowOf(app).getNextStoppedService();
+        assertNotNull("Service released", stopped);
+        assertEquals(new ComponentName(app, TorchService.class), stopped.getComponent());
+        assertTrue("Light stays on", shadowOf(cameraManager).getTorchMode(TorchTestHarness.CAMERA_ID));
+    }
+
+    private void assertStartedTorchService() {
+        Intent started = shadowOf(app).getNextStartedService();
+        assertNotNull("Hand-off started TorchService", started);
+        assertEquals(new ComponentName(app, TorchService.class), started.getComponent());
+    }
+}
@@ -0,0 +1,68 @@
+package com.walklight.safety;
+
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraManager;
+import android.os.Looper;
+
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowCameraCharacteristics;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared setup for Robolectric tests that drive the real MainActivity: fresh process-scoped
+ * singletons and one back camera with a flash unit behind the shadow CameraManager.
+ * Run with {@code @Config(application = Application.class)} - no torch prewarm / package receivers.
+ */
+final class TorchTestHarness {
+    static final String CAMERA_ID = "0";
+
+    private TorchTestHarness() {}
+
+    /** From @Before. Returns the CameraManager whose torch mode the tests check. */
+    static CameraManager setUp(boolean keepLightOnClose) {
+        // Process-scoped singletons would still point at the previous test's Application
+        reset();
+
+        Application app = RuntimeEnvironment.getApplication();
+        shadowOf(app.getPackageManager()).setSystemFeature(PackageManager.FEATURE_CAMERA_FLASH, true);
+        CameraCharacteristics back = ShadowCameraCharacteristics.newCameraCharacteristics();
+        shadowOf(back).set(CameraCharacteristics.FLASH_INFO_AVAILABLE, true);
+        shadowOf(back).set(CameraCharacteristics.LENS_FACING, CameraCharacteristics.LENS_FACING_BACK);
+        CameraManager cameraManager = (CameraManager) app.getSystemService(Context.CAMERA_SERVICE);
+        shadowOf(cameraManager).addCamera(CAMERA_ID, back);
+        app.getSharedPreferences(SettingsSnapshot.PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putBoolean(SettingsSnapshot.KEY_KEEP_LIGHT_ON_CLOSE, keepLightOnClose)
+                .commit();
+        return cameraManager;
+    }
+
+    /** From @After. */
+    static void reset() {
+        TorchExecutor.reset();
+        TorchSession.reset();
+        SettingsStore.reset();
+        TorchService.reset();
+    }
+
+    // Torch commands run on TorchExecutor's thread; their results are posted back to the main thread
+    static void drainTorchThread(Context context) throws InterruptedException {
+        CountDownLatch drained = new CountDownLatch(1);
+        TorchExecutor.get(context).post(drained::countDown);
+        assertTrue("Torch thread drained", drained.await(5, TimeUnit.SECONDS));
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    /** Run the main looper, frames included, {@code ms} ahead on the paused clock. */
+    static void advance(long ms) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ms));
+    }
+}
@@ -0,0 +1,32 @@
+package com.walklight.safety;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pause / exit policy evaluation across every input combination.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LightPolicyBenchmark {
+    private int inputs;
+
+    @Benchmark
+    public int onStop() {
+        int bits = inputs++ & 0xF;
+        return LightPolicy.onStop((bits & 1) != 0, (bits & 2) != 0, (bits & 4) != 0, (bits & 8) != 0).ordinal();
+    }
+
+    @Benchmark
+    public int onExit() {
+        int bits = inputs++ & 0x3;
+        return LightPolicy.onExit((bits & 1) != 0, (bits & 2) != 0).ordinal();
+    }
+}
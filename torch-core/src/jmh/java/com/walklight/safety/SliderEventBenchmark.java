@@ -0,0 +1,83 @@
+package com.walklight.safety;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One simulated slider drag event through the torch control core, the way MainActivity and
+ * TorchExecutor run it: slider sync decision, intensity-to-strength mapping, coalescing and
+ * HAL planning. Run with {@code ./gradlew :torch-core:jmh}; gc.alloc.rate.norm should stay 0.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SliderEventBenchmark {
+    private static final int MAX_LEVEL = 99; // Samsung-style 1-99 range
+    private static final int STEPS = 1000;
+
+    private final float[] drag = new float[STEPS];
+    private StrengthCoalescer coalescer;
+    private TorchStateMachine torchState;
+    private int step;
+    private long nowMs;
+    private int hardwareLevel;
+    private long drainAtMs = StrengthCoalescer.NO_DRAIN; // Simulated worker.postDelayed(drainStrength)
+
+    @Setup
+    public void setUp() {
+        // Back-and-forth drag across the full 0.1-1.0 slider range
+        for (int i = 0; i < STEPS; i++) {
+            float t = (float) i / STEPS;
+            drag[i] = 0.1f + 0.9f * (t < 0.5f ? t * 2 : (1 - t) * 2);
+        }
+        coalescer = new StrengthCoalescer(30);
+        torchState = new TorchStateMachine();
+        torchState.markOn(MAX_LEVEL);
+        hardwareLevel = MAX_LEVEL;
+    }
+
+    @Benchmark
+    public int sliderEvent() {
+        float value = drag[step];
+        step = (step + 1) % STEPS;
+        nowMs += 8; // ~120 Hz touch events
+
+        int actions = SliderSync.onSliderChanged(SliderSync.LED, true, torchState.isOn());
+        int result = actions;
+        if (SliderSync.has(actions, SliderSync.APPLY_TORCH)) {
+            int level = TorchStrength.toLevel(value, MAX_LEVEL);
+            torchState.updateLevel(level);
+            long delayMs = coalescer.offer(level, nowMs);
+            if (delayMs != StrengthCoalescer.NO_DRAIN) {
+                drainAtMs = nowMs + delayMs;
+            }
+        }
+        if (drainAtMs != StrengthCoalescer.NO_DRAIN && nowMs >= drainAtMs) {
+            // What the torch thread does when the delayed drain runs
+            drainAtMs = StrengthCoalescer.NO_DRAIN;
+            int drained = coalescer.take(nowMs);
+            if (drained != StrengthCoalescer.NONE) {
+                TorchPlanner.Step plan = TorchPlanner.plan(true, true, hardwareLevel, true, drained, true);
+                if (plan == TorchPlanner.Step.SET_STRENGTH) {
+                    hardwareLevel = drained;
+                }
+                result += plan.ordinal();
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int strengthMapping() {
+        float value = drag[step];
+        step = (step + 1) % STEPS;
+        return TorchStrength.toLevel(value, MAX_LEVEL);
+    }
+}
@@ -0,0 +1,111 @@
+package com.walklight.safety;
+
+/**
+ * Renders the main screen's control state (which roles the sliders play, the sync switch and
+ * its visibility, the synced slider's label) from two inputs: is the light shown, is sync on.
+ * Only properties that differ from what was last applied reach the {@link Sink}, so repeated
+ * updateLayoutMode() calls after torch callbacks and toggles cost nothing when nothing changed.
+ *
+ * Counts view writes since {@link #beginInteraction()}, and the layout passes the view side
+ * reports through {@link #onLayoutPass()}, for tests and dumpsys.
+ */
+public final class ControlsRenderer {
+    public static final int LABEL_INTENSITY = 0;
+    public static final int LABEL_SCREEN_BRIGHTNESS = 1;
+    private static final int UNKNOWN = -1;
+
+    /** View side (MainActivity). Each call is a real change. Main thread. */
+    public interface Sink {
+        /** UiSnapshot.MODE_*: bind the sliders to that mode's roles */
+        void showMode(int mode);
+
+        void setSyncControlsVisible(boolean visible);
+
+        /** Must not come back through the sync switch listener */
+        void setSyncChecked(boolean checked);
+
+        void setSyncedLabel(int label);
+    }
+
+    private final Sink sink;
+
+    // Last applied; UNKNOWN until the first render, which applies everything
+    private int mode = UNKNOWN;
+    private int syncControlsVisible = UNKNOWN;
+    private int syncChecked = UNKNOWN;
+    private int syncedLabel = UNKNOWN;
+
+    private int layoutPasses;
+    private int viewWrites;
+
+    public ControlsRenderer(Sink sink) {
+        this.sink = sink;
+    }
+
+    public void render(boolean lightShown, boolean syncEnabled) {
+        int checked = syncEnabled ? 1 : 0;
+        if (checked != syncChecked) {
+            syncChecked = checked;
+            sink.setSyncChecked(syncEnabled);
+            viewWrites++;
+        }
+
+        int visible = lightShown ? 1 : 0;
+        if (visible != syncControlsVisible) {
+            syncControlsVisible = visible;
+            sink.setSyncControlsVisible(lightShown);
+            viewWrites++;
+        }
+
+        // The synced slider's label only matters while the synced role can be shown
+        if (syncEnabled) {
+            int label = lightShown ? LABEL_INTENSITY : LABEL_SCREEN_BRIGHTNESS;
+            if (label != syncedLabel) {
+                syncedLabel = label;
+                sink.setSyncedLabel(label);
+                viewWrites++;
+            }
+        }
+
+        int newMode = UiSnapshot.modeFor(lightShown, syncEnabled);
+        if (newMode != mode) {
+            mode = newMode;
+            sink.showMode(newMode);
+            viewWrites++;
+        }
+    }
+
+    /** Views changed behind the renderer's back (or were recreated): the next render applies everything. */
+    public void invalidate() {
+        mode = UNKNOWN;
+        syncControlsVisible = UNKNOWN;
+        syncChecked = UNKNOWN;
+        syncedLabel = UNKNOWN;
+    }
+
+    /** Start counting for a new user interaction (light toggle, sync switch, slider drag). */
+    public void beginInteraction() {
+        layoutPasses = 0;
+        viewWrites = 0;
+    }
+
+    /** A layout pass of the controls happened (ViewTreeObserver on the view side). */
+    public void onLayoutPass() {
+        layoutPasses++;
+    }
+
+    /** Layout passes reported since beginInteraction(). */
+    public int layoutPasses() {
+        return layoutPasses;
+    }
+
+    /** Sink calls since beginInteraction(). */
+    public int viewWrites() {
+        return viewWrites;
+    }
+
+    /** Last applied UiSnapshot.MODE_*, or -1 before the first render. */
+    public int mode() {
+        return mode;
+    }
+}
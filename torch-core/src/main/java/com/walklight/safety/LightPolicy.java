@@ -0,0 +1,45 @@
+package com.walklight.safety;
+
+/**
+ * Pause and exit decisions for the light, kept free of Android types so they can be
+ * unit tested and benchmarked. The "keep light on when closed" preference is an input.
+ */
+public final class LightPolicy {
+    private LightPolicy() {}
+
+    public enum StopAction {
+        /** Activity recreation or entering multi-window - state restoration handles the light */
+        IGNORE,
+        /** Light is off, nothing to do */
+        NOTHING,
+        KEEP_ON,
+        /** Turn the light off but remember the level so onResume() restores it */
+        SUSPEND
+    }
+
+    public enum ExitAction {
+        NOTHING,
+        KEEP_ON,
+        TURN_OFF
+    }
+
+    /** D3 FIX / PHASE 2.2: only a real stop applies the close preference. */
+    public static StopAction onStop(boolean changingConfigurations, boolean enteringMultiWindow,
+                                    boolean torchOn, boolean keepLightOn) {
+        if (changingConfigurations || enteringMultiWindow) {
+            return StopAction.IGNORE;
+        }
+        if (!torchOn) {
+            return StopAction.NOTHING;
+        }
+        return keepLightOn ? StopAction.KEEP_ON : StopAction.SUSPEND;
+    }
+
+    /** B1: respect the "keep light on when closed" preference. */
+    public static ExitAction onExit(boolean torchOn, boolean keepLightOn) {
+        if (!torchOn) {
+            return ExitAction.NOTHING;
+        }
+        return keepLightOn ? ExitAction.KEEP_ON : ExitAction.TURN_OFF;
+    }
+}
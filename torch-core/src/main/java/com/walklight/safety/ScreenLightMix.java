@@ -0,0 +1,38 @@
+package com.walklight.safety;
+
+/**
+ * Splits a screen-light level (0..1, what the user perceives) between the display backlight and
+ * the light surface's pixel color. The backlight carries as much of the level as it can and the
+ * pixels stay white, so a dim screen light is a dim panel rather than a bright panel behind
+ * grey pixels. Below {@code minBacklight} (kept so the controls stay readable) the pixels dim.
+ *
+ * All three scales are perceptual: the slider level, LayoutParams.screenBrightness (the system
+ * maps it to luminance through the device's brightness curve) and gamma-encoded grey values. For
+ * power-law curves the perceived level of backlight x pixel is the product of the two perceived
+ * levels, so the split is a plain ratio and needs no linear-light conversion - which also keeps
+ * the unfocused light (pixels only) at the grey it always had, 128 at half.
+ */
+public final class ScreenLightMix {
+    private ScreenLightMix() {}
+
+    /** Window backlight (LayoutParams.screenBrightness) for {@code intensity}. */
+    public static float backlight(float intensity, float minBacklight) {
+        return Math.max(clamp(intensity), clamp(minBacklight));
+    }
+
+    /** Grey level (0..255) for the light surface, given the backlight chosen above. */
+    public static int pixelGray(float intensity, float minBacklight) {
+        float backlight = backlight(intensity, minBacklight);
+        if (backlight <= 0f) return 0;
+        return Math.round(255 * Math.min(1f, clamp(intensity) / backlight));
+    }
+
+    /** The system keeps the backlight (no window override): all of the level goes to the pixels. */
+    public static int pixelGrayAtSystemBacklight(float intensity) {
+        return Math.round(255 * clamp(intensity));
+    }
+
+    private static float clamp(float value) {
+        return Math.max(0f, Math.min(1f, value));
+    }
+}
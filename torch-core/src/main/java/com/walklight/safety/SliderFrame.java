@@ -0,0 +1,63 @@
+package com.walklight.safety;
+
+/**
+ * Slider input collected between two display frames, resolved once per frame into at most one
+ * torch level, one screen level and one value per mirrored slider (NaN = unchanged).
+ * Only user input is offered, so writing the mirrored sliders can never feed back in.
+ * Allocation-free: reused for every frame of a drag.
+ */
+public final class SliderFrame {
+    private final float[] pending = new float[SliderSync.SCREEN_ONLY + 1];
+    private int dirty; // Bit per slider
+
+    private float torch = Float.NaN;
+    private float screen = Float.NaN;
+    private float ledSlider = Float.NaN;
+    private float screenSlider = Float.NaN;
+
+    /** A user drag step; a later step of the same slider in this frame replaces it. */
+    public void offer(int slider, float value) {
+        pending[slider] = value;
+        dirty |= 1 << slider;
+    }
+
+    public boolean isEmpty() {
+        return dirty == 0;
+    }
+
+    /** Turn this frame's input into outputs for the current mode, and start a new frame. */
+    public void resolve(boolean syncEnabled, boolean torchOn) {
+        torch = Float.NaN;
+        screen = Float.NaN;
+        ledSlider = Float.NaN;
+        screenSlider = Float.NaN;
+        for (int slider = SliderSync.LED; slider <= SliderSync.SCREEN_ONLY; slider++) {
+            if ((dirty & (1 << slider)) == 0) continue;
+            float value = pending[slider];
+            int actions = SliderSync.onSliderChanged(slider, syncEnabled, torchOn);
+            if (SliderSync.has(actions, SliderSync.APPLY_TORCH)) torch = value;
+            if (SliderSync.has(actions, SliderSync.APPLY_SCREEN)) screen = value;
+            if (SliderSync.has(actions, SliderSync.MIRROR_LED_SLIDER)) ledSlider = value;
+            if (SliderSync.has(actions, SliderSync.MIRROR_SCREEN_SLIDER)) screenSlider = value;
+        }
+        dirty = 0;
+    }
+
+    public float torchLevel() {
+        return torch;
+    }
+
+    public float screenLevel() {
+        return screen;
+    }
+
+    /** Value for the LED slider when it mirrors the screen slider. */
+    public float ledSliderValue() {
+        return ledSlider;
+    }
+
+    /** Value for the screen slider when it mirrors the LED slider. */
+    public float screenSliderValue() {
+        return screenSlider;
+    }
+}
@@ -0,0 +1,64 @@
+package com.walklight.safety;
+
+import java.util.Arrays;
+
+/**
+ * Values of the four slider roles (SliderSync.LED / SCREEN / SYNCED / SCREEN_ONLY) and which
+ * role each of the main screen's two physical sliders plays in a given UiSnapshot mode.
+ * The values live here rather than in views, so rebinding a slider to another role on a mode
+ * change, recreation or a snapshot restore never reads a stale slider.
+ */
+public final class SliderRoles {
+    public static final int NONE = -1;
+    /** Slider range, matches valueFrom / valueTo in activity_main.xml */
+    public static final float MIN = 0.1f;
+    public static final float MAX = 1.0f;
+
+    private final float[] values = new float[SliderSync.SCREEN_ONLY + 1];
+
+    public SliderRoles() {
+        Arrays.fill(values, MAX); // The XML default
+    }
+
+    /** Full-width slider in screen-only and synced mode, left half (LED) in independent mode. */
+    public static int primary(int mode) {
+        switch (mode) {
+            case UiSnapshot.MODE_SYNCED:
+                return SliderSync.SYNCED;
+            case UiSnapshot.MODE_INDEPENDENT:
+                return SliderSync.LED;
+            default:
+                return SliderSync.SCREEN_ONLY;
+        }
+    }
+
+    /** Right half (screen) in independent mode, hidden otherwise. */
+    public static int secondary(int mode) {
+        return mode == UiSnapshot.MODE_INDEPENDENT ? SliderSync.SCREEN : NONE;
+    }
+
+    public float get(int role) {
+        return values[role];
+    }
+
+    /** Stores {@code value} clamped to the slider range and returns what was stored. */
+    public float set(int role, float value) {
+        float clamped = Math.max(MIN, Math.min(MAX, value));
+        values[role] = clamped;
+        return clamped;
+    }
+
+    /** For onSaveInstanceState. */
+    public float[] toArray() {
+        return values.clone();
+    }
+
+    /** From onSaveInstanceState; ignored (false) unless it holds every role. */
+    public boolean restore(float[] saved) {
+        if (saved == null || saved.length != values.length) return false;
+        for (int role = 0; role < values.length; role++) {
+            set(role, saved[role]);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+package com.walklight.safety;
+
+/**
+ * Decides what a user drag step on a slider should do, as a set of bit flags.
+ * Only user input gets here (SliderFrame), so programmatic slider writes need no guard.
+ * Allocation-free: this runs for every slider once per frame of a drag.
+ */
+public final class SliderSync {
+    private SliderSync() {}
+
+    // Sliders
+    public static final int LED = 0;
+    public static final int SCREEN = 1;
+    public static final int SYNCED = 2;
+    public static final int SCREEN_ONLY = 3;
+
+    // Actions
+    public static final int APPLY_TORCH = 1;
+    public static final int APPLY_SCREEN = 1 << 1;
+    public static final int MIRROR_LED_SLIDER = 1 << 2;
+    public static final int MIRROR_SCREEN_SLIDER = 1 << 3;
+
+    /**
+     * @param syncEnabled LED and screen sliders are linked
+     * @param torchOn     the torch is lit, so the LED level can be applied
+     * @return a combination of the action flags, 0 for nothing
+     */
+    public static int onSliderChanged(int slider, boolean syncEnabled, boolean torchOn) {
+        switch (slider) {
+            case LED: {
+                int actions = torchOn ? APPLY_TORCH : 0;
+                if (syncEnabled) {
+                    actions |= APPLY_SCREEN | MIRROR_SCREEN_SLIDER;
+                }
+                return actions;
+            }
+            case SCREEN: {
+                int actions = APPLY_SCREEN;
+                if (syncEnabled) {
+                    actions |= MIRROR_LED_SLIDER;
+                    if (torchOn) {
+                        actions |= APPLY_TORCH;
+                    }
+                }
+                return actions;
+            }
+            case SYNCED:
+                return APPLY_TORCH | APPLY_SCREEN;
+            case SCREEN_ONLY:
+                return APPLY_SCREEN;
+            default:
+                return 0;
+        }
+    }
+
+    public static boolean has(int actions, int flag) {
+        return (actions & flag) != 0;
+    }
+}
@@ -0,0 +1,67 @@
+package com.walklight.safety;
+
+/**
+ * Latest-wins coalescing of torch strength updates with a bounded command rate.
+ *
+ * Slider drags call {@link #offer} for every change event; the owner schedules a single
+ * drain after the returned delay and applies whatever {@link #take} hands back. Superseded
+ * intermediate levels are dropped and a level equal to the last applied one is skipped,
+ * so the final value always lands but the HAL sees at most one call per interval.
+ */
+public final class StrengthCoalescer {
+    public static final int NONE = -1;
+    public static final long NO_DRAIN = -1L;
+
+    private final long minIntervalMs;
+    private int pendingLevel = NONE;
+    private int lastAppliedLevel = NONE;
+    private long lastAppliedAtMs;
+    private boolean hasApplied = false;
+    private boolean drainScheduled = false;
+
+    public StrengthCoalescer(int maxCommandsPerSecond) {
+        this.minIntervalMs = maxCommandsPerSecond > 0 ? 1000L / maxCommandsPerSecond : 0L;
+    }
+
+    /**
+     * Record the newest requested level.
+     * @return delay in ms before the owner should call {@link #take}, or {@link #NO_DRAIN}
+     *         if a drain is already scheduled (it will pick up this value)
+     */
+    public synchronized long offer(int level, long nowMs) {
+        pendingLevel = level;
+        if (drainScheduled) {
+            return NO_DRAIN;
+        }
+        drainScheduled = true;
+        if (!hasApplied) {
+            return 0L;
+        }
+        return Math.max(0L, lastAppliedAtMs + minIntervalMs - nowMs);
+    }
+
+    /**
+     * Take the level to send to the HAL, or {@link #NONE} if nothing new is pending.
+     */
+    public synchronized int take(long nowMs) {
+        drainScheduled = false;
+        int level = pendingLevel;
+        pendingLevel = NONE;
+        if (level == NONE || level == lastAppliedLevel) {
+            return NONE;
+        }
+        lastAppliedLevel = level;
+        lastAppliedAtMs = nowMs;
+        hasApplied = true;
+        return level;
+    }
+
+    /**
+     * Note a level applied outside the coalescer (e.g. as part of turning the torch on),
+     * or {@link #NONE} when the hardware level is unknown. Drops any pending value.
+     */
+    public synchronized void reset(int appliedLevel) {
+        pendingLevel = NONE;
+        lastAppliedLevel = appliedLevel;
+    }
+}
@@ -0,0 +1,49 @@
+package com.walklight.safety;
+
+/**
+ * Turns a desired torch state into the fewest HAL calls given what the hardware is already doing.
+ * Never re-issues a call for a state the hardware is already in.
+ */
+public final class TorchPlanner {
+    private TorchPlanner() {}
+
+    public enum Step {
+        /** Nothing to do - hardware already matches. */
+        NONE,
+        /** setTorchMode(id, true) - devices without strength control. */
+        SET_ON,
+        /** setTorchMode(id, false). */
+        SET_OFF,
+        /** turnOnTorchWithStrengthLevel(id, level) - turns on AND sets level in one call (API 33+). */
+        SET_STRENGTH
+    }
+
+    /**
+     * @param hardwareKnown     false until the first command or callback tells us the real state
+     *                          (e.g. the torch may still be on from a previous process)
+     * @param hardwareOn        torch state last applied to / reported by the hardware
+     * @param hardwareLevel     strength level last applied, or {@link StrengthCoalescer#NONE} if unknown
+     * @param wantOn            desired torch state
+     * @param wantLevel         desired strength level (ignored when off or unsupported)
+     * @param strengthSupported API 33+ and the flash unit reports more than one level
+     */
+    public static Step plan(boolean hardwareKnown, boolean hardwareOn, int hardwareLevel,
+                            boolean wantOn, int wantLevel, boolean strengthSupported) {
+        if (!hardwareKnown) {
+            if (!wantOn) {
+                return Step.SET_OFF;
+            }
+            return strengthSupported ? Step.SET_STRENGTH : Step.SET_ON;
+        }
+        if (!wantOn) {
+            return hardwareOn ? Step.SET_OFF : Step.NONE;
+        }
+        if (!strengthSupported) {
+            return hardwareOn ? Step.NONE : Step.SET_ON;
+        }
+        if (hardwareOn && hardwareLevel == wantLevel) {
+            return Step.NONE;
+        }
+        return Step.SET_STRENGTH;
+    }
+}
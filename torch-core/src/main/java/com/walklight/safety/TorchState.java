@@ -0,0 +1,15 @@
+package com.walklight.safety;
+
+/**
+ * Lifecycle states of the torch as seen by the app.
+ */
+public enum TorchState {
+    /** Torch off, nothing to restore. */
+    OFF,
+    /** Torch confirmed on at {@link TorchStateMachine#getLevel()}. */
+    ON,
+    /** Torch turned off because the app stopped; restore on resume. */
+    SUSPENDED,
+    /** Restore command in flight after a suspend. */
+    RESTORING
+}
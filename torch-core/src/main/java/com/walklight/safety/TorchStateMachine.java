@@ -0,0 +1,67 @@
+package com.walklight.safety;
+
+/**
+ * Single owner of torch state for MainActivity.
+ * Replaces the isFlashlightOn / wasFlashlightOnBeforePause boolean pair. Pure Java, main thread only.
+ */
+public final class TorchStateMachine {
+    private TorchState state = TorchState.OFF;
+    private int level = StrengthCoalescer.NONE;
+
+    public TorchState getState() {
+        return state;
+    }
+
+    /** Last requested strength level (kept while SUSPENDED so resume restores it). */
+    public int getLevel() {
+        return level;
+    }
+
+    public boolean isOn() {
+        return state == TorchState.ON;
+    }
+
+    public boolean needsRestore() {
+        return state == TorchState.SUSPENDED;
+    }
+
+    /** Hardware confirmed the torch is on at {@code strengthLevel}. */
+    public void markOn(int strengthLevel) {
+        state = TorchState.ON;
+        level = strengthLevel;
+    }
+
+    /** Torch is (or is about to be) off and should stay off. */
+    public void markOff() {
+        state = TorchState.OFF;
+    }
+
+    /** Slider moved while on - remember the new level without changing state. */
+    public void updateLevel(int strengthLevel) {
+        level = strengthLevel;
+    }
+
+    /**
+     * App stopped with the light on but the user doesn't want it kept on.
+     * @return true if the torch should now be switched off
+     */
+    public boolean suspend() {
+        if (state != TorchState.ON) {
+            return false;
+        }
+        state = TorchState.SUSPENDED;
+        return true;
+    }
+
+    /**
+     * Start restoring a suspended torch.
+     * @return true if a restore command should be issued
+     */
+    public boolean beginRestore() {
+        if (state != TorchState.SUSPENDED) {
+            return false;
+        }
+        state = TorchState.RESTORING;
+        return true;
+    }
+}
@@ -0,0 +1,16 @@
+package com.walklight.safety;
+
+/**
+ * Maps slider intensity (0.0-1.0) onto the device's torch strength range.
+ */
+public final class TorchStrength {
+    private TorchStrength() {}
+
+    /**
+     * Quantize an intensity to a strength level in [1, maxLevel].
+     * Uses the device's actual max strength level (Samsung devices often use 1-99, not 1-100).
+     */
+    public static int toLevel(float intensity, int maxLevel) {
+        return Math.max(1, Math.min(maxLevel, Math.round(intensity * maxLevel)));
+    }
+}
@@ -0,0 +1,82 @@
+package com.walklight.safety;
+
+/**
+ * The last UI state of the main screen: which control mode was shown, the sync flag, every
+ * slider's value and the screen light level. Persisted as one short line so a fresh launch can
+ * lay out its first frame in its final state instead of starting from the XML defaults.
+ */
+public final class UiSnapshot {
+    // ================================
+    // MODES (which slider container is shown)
+    // ================================
+    /** Flashlight off: one screen brightness slider */
+    public static final int MODE_SCREEN_ONLY = 0;
+    /** Flashlight on, sync off: LED + screen sliders */
+    public static final int MODE_INDEPENDENT = 1;
+    /** Flashlight on, sync on: one slider for both */
+    public static final int MODE_SYNCED = 2;
+
+    private static final String VERSION = "1";
+    private static final char SEPARATOR = ';';
+    private static final int FIELDS = 8;
+
+    public final int mode;
+    public final boolean syncEnabled;
+    public final float ledSlider;
+    public final float screenSlider;
+    public final float syncedSlider;
+    public final float screenOnlySlider;
+    public final float screenLevel;
+
+    public UiSnapshot(int mode, boolean syncEnabled, float ledSlider, float screenSlider,
+                      float syncedSlider, float screenOnlySlider, float screenLevel) {
+        this.mode = mode;
+        this.syncEnabled = syncEnabled;
+        this.ledSlider = ledSlider;
+        this.screenSlider = screenSlider;
+        this.syncedSlider = syncedSlider;
+        this.screenOnlySlider = screenOnlySlider;
+        this.screenLevel = screenLevel;
+    }
+
+    public static int modeFor(boolean torchOn, boolean syncEnabled) {
+        if (!torchOn) return MODE_SCREEN_ONLY;
+        return syncEnabled ? MODE_SYNCED : MODE_INDEPENDENT;
+    }
+
+    public boolean torchShown() {
+        return mode != MODE_SCREEN_ONLY;
+    }
+
+    /** {@code version;mode;sync;led;screen;synced;screenOnly;screenLevel} */
+    public String encode() {
+        return VERSION + SEPARATOR + mode + SEPARATOR + (syncEnabled ? 1 : 0)
+                + SEPARATOR + ledSlider + SEPARATOR + screenSlider + SEPARATOR + syncedSlider
+                + SEPARATOR + screenOnlySlider + SEPARATOR + screenLevel;
+    }
+
+    /** Null if missing, written by another version, or corrupt - the caller uses its defaults. */
+    public static UiSnapshot parse(String encoded) {
+        if (encoded == null) return null;
+        String[] fields = encoded.split(String.valueOf(SEPARATOR), -1);
+        if (fields.length != FIELDS || !VERSION.equals(fields[0])) return null;
+        try {
+            int mode = Integer.parseInt(fields[1]);
+            if (mode < MODE_SCREEN_ONLY || mode > MODE_SYNCED) return null;
+            float[] values = new float[5];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = Float.parseFloat(fields[3 + i]);
+                if (Float.isNaN(values[i]) || Float.isInfinite(values[i])) return null;
+            }
+            return new UiSnapshot(mode, "1".equals(fields[2]),
+                    values[0], values[1], values[2], values[3], values[4]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "UiSnapshot{" + encode() + "}";
+    }
+}
@@ -0,0 +1,129 @@
+package com.walklight.safety;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for diff-based rendering of the main screen controls
+ */
+public class ControlsRendererTest {
+
+    private final List<String> writes = new ArrayList<>();
+    private ControlsRenderer renderer;
+
+    @Before
+    public void setUp() {
+        renderer = new ControlsRenderer(new ControlsRenderer.Sink() {
+            @Override
+            public void showMode(int mode) {
+                writes.add("mode=" + mode);
+            }
+
+            @Override
+            public void setSyncControlsVisible(boolean visible) {
+                writes.add("syncVisible=" + visible);
+            }
+
+            @Override
+            public void setSyncChecked(boolean checked) {
+                writes.add("syncChecked=" + checked);
+            }
+
+            @Override
+            public void setSyncedLabel(int label) {
+                writes.add("label=" + label);
+            }
+        });
+    }
+
+    @Test
+    public void firstRender_appliesEverything() {
+        renderer.render(false, false);
+
+        assertEquals(3, writes.size());
+        assertTrue(writes.contains("mode=" + UiSnapshot.MODE_SCREEN_ONLY));
+        assertEquals(3, renderer.viewWrites());
+    }
+
+    @Test
+    public void unchangedState_noWritesNoLayout() {
+        renderer.render(true, false);
+        renderer.beginInteraction();
+        writes.clear();
+
+        // updateLayoutMode() from the torch callback, the toggle and the label update
+        renderer.render(true, false);
+        renderer.render(true, false);
+        renderer.render(true, false);
+
+        assertTrue(writes.isEmpty());
+        assertEquals(0, renderer.viewWrites());
+    }
+
+    @Test
+    public void lightOn_appliedOnce() {
+        renderer.render(false, false);
+        renderer.beginInteraction();
+        writes.clear();
+
+        renderer.render(true, false); // Request callback
+        renderer.render(true, false); // Hardware callback for the same change
+
+        assertEquals(2, renderer.viewWrites()); // Sync controls shown, sliders rebound
+        assertEquals(UiSnapshot.MODE_INDEPENDENT, renderer.mode());
+    }
+
+    @Test
+    public void syncToggle_switchesModeAndLabelOnly() {
+        renderer.render(true, false);
+        renderer.beginInteraction();
+        writes.clear();
+
+        renderer.render(true, true);
+
+        assertEquals(3, renderer.viewWrites());
+        assertTrue(writes.contains("syncChecked=true"));
+        assertTrue(writes.contains("label=" + ControlsRenderer.LABEL_INTENSITY));
+        assertTrue(writes.contains("mode=" + UiSnapshot.MODE_SYNCED));
+        assertFalse(writes.contains("syncVisible=true"));
+    }
+
+    @Test
+    public void syncOff_labelLeftAlone() {
+        renderer.render(true, false);
+        renderer.render(false, false);
+
+        for (String write : writes) {
+            assertFalse(write, write.startsWith("label="));
+        }
+    }
+
+    @Test
+    public void layoutPasses_areOnlyThoseReported() {
+        renderer.render(true, true); // Renders don't count - only real passes on the view side
+        assertEquals(0, renderer.layoutPasses());
+
+        renderer.onLayoutPass();
+        renderer.onLayoutPass();
+        assertEquals(2, renderer.layoutPasses());
+
+        renderer.beginInteraction();
+        assertEquals(0, renderer.layoutPasses());
+    }
+
+    @Test
+    public void invalidate_reappliesEverything() {
+        renderer.render(true, true);
+        renderer.invalidate();
+        writes.clear();
+
+        renderer.render(true, true);
+
+        assertEquals(4, writes.size());
+    }
+}
@@ -0,0 +1,60 @@
+package com.walklight.safety;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the backlight / pixel split of the screen light
+ */
+public class ScreenLightMixTest {
+    private static final float FLOOR = 0.05f;
+
+    @Test
+    public void aboveFloor_backlightCarriesLevel_pixelsStayWhite() {
+        assertEquals(0.4f, ScreenLightMix.backlight(0.4f, FLOOR), 1e-6f);
+        assertEquals(255, ScreenLightMix.pixelGray(0.4f, FLOOR));
+        assertEquals(1f, ScreenLightMix.backlight(1f, FLOOR), 1e-6f);
+        assertEquals(255, ScreenLightMix.pixelGray(1f, FLOOR));
+    }
+
+    @Test
+    public void belowFloor_backlightAtFloor_pixelsDim() {
+        assertEquals(FLOOR, ScreenLightMix.backlight(0.02f, FLOOR), 1e-6f);
+        assertEquals(Math.round(255 * 0.02f / FLOOR), ScreenLightMix.pixelGray(0.02f, FLOOR));
+    }
+
+    @Test
+    public void perceivedLevel_isPreserved() {
+        for (int permille = 0; permille <= 1000; permille++) {
+            float intensity = permille / 1000f;
+            float perceived = ScreenLightMix.backlight(intensity, FLOOR) * ScreenLightMix.pixelGray(intensity, FLOOR) / 255f;
+            assertEquals("level " + permille, intensity, perceived, 0.002f);
+        }
+    }
+
+    @Test
+    public void perceivedLevel_noStepAtFloor() {
+        float step = 0.001f;
+        float below = ScreenLightMix.backlight(FLOOR - step, FLOOR) * ScreenLightMix.pixelGray(FLOOR - step, FLOOR) / 255f;
+        float above = ScreenLightMix.backlight(FLOOR + step, FLOOR) * ScreenLightMix.pixelGray(FLOOR + step, FLOOR) / 255f;
+        assertEquals(2 * step, above - below, 0.0005f);
+    }
+
+    @Test
+    public void zeroFloor_andOutOfRangeInput() {
+        assertEquals(0, ScreenLightMix.pixelGray(0f, 0f));
+        assertEquals(1f, ScreenLightMix.backlight(1.5f, FLOOR), 1e-6f);
+        assertEquals(255, ScreenLightMix.pixelGray(1.5f, FLOOR));
+        assertEquals(FLOOR, ScreenLightMix.backlight(-1f, FLOOR), 1e-6f);
+        assertEquals(0, ScreenLightMix.pixelGray(-1f, FLOOR));
+    }
+
+    @Test
+    public void systemBacklight_allInPixels() {
+        assertEquals(0, ScreenLightMix.pixelGrayAtSystemBacklight(0f));
+        // Unfocused at half: the grey the screen light had before it drove the backlight
+        assertEquals(128, ScreenLightMix.pixelGrayAtSystemBacklight(0.5f));
+        assertEquals(255, ScreenLightMix.pixelGrayAtSystemBacklight(1f));
+    }
+}
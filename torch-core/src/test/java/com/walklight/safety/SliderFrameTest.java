@@ -0,0 +1,70 @@
+package com.walklight.safety;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for per-frame slider resolution
+ */
+public class SliderFrameTest {
+
+    @Test
+    public void manyStepsInOneFrame_lastValueWins() {
+        SliderFrame frame = new SliderFrame();
+        frame.offer(SliderSync.SYNCED, 0.3f);
+        frame.offer(SliderSync.SYNCED, 0.4f);
+        frame.offer(SliderSync.SYNCED, 0.5f);
+        frame.resolve(true, true);
+
+        assertEquals(0.5f, frame.torchLevel(), 0f);
+        assertEquals(0.5f, frame.screenLevel(), 0f);
+        assertTrue(Float.isNaN(frame.ledSliderValue()));
+        assertTrue(Float.isNaN(frame.screenSliderValue()));
+        assertTrue(frame.isEmpty());
+    }
+
+    @Test
+    public void ledDrag_synced_fansOutToScreenAndMirror() {
+        SliderFrame frame = new SliderFrame();
+        frame.offer(SliderSync.LED, 0.7f);
+        frame.resolve(true, true);
+
+        assertEquals(0.7f, frame.torchLevel(), 0f);
+        assertEquals(0.7f, frame.screenLevel(), 0f);
+        assertEquals(0.7f, frame.screenSliderValue(), 0f);
+        assertTrue(Float.isNaN(frame.ledSliderValue()));
+    }
+
+    @Test
+    public void screenDrag_independent_onlyScreen() {
+        SliderFrame frame = new SliderFrame();
+        frame.offer(SliderSync.SCREEN, 0.2f);
+        frame.resolve(false, true);
+
+        assertTrue(Float.isNaN(frame.torchLevel()));
+        assertEquals(0.2f, frame.screenLevel(), 0f);
+        assertTrue(Float.isNaN(frame.ledSliderValue()));
+    }
+
+    @Test
+    public void ledDrag_torchOff_noTorchLevel() {
+        SliderFrame frame = new SliderFrame();
+        frame.offer(SliderSync.LED, 0.6f);
+        frame.resolve(false, false);
+
+        assertTrue(Float.isNaN(frame.torchLevel()));
+        assertTrue(Float.isNaN(frame.screenLevel()));
+    }
+
+    @Test
+    public void resolve_clearsPreviousOutputs() {
+        SliderFrame frame = new SliderFrame();
+        frame.offer(SliderSync.SCREEN_ONLY, 0.8f);
+        frame.resolve(false, false);
+        assertEquals(0.8f, frame.screenLevel(), 0f);
+
+        frame.resolve(false, false);
+        assertTrue(Float.isNaN(frame.screenLevel()));
+    }
+}
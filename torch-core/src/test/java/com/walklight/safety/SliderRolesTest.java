@@ -0,0 +1,45 @@
+package com.walklight.safety;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for slider role values and their binding to the two main-screen sliders
+ */
+public class SliderRolesTest {
+
+    @Test
+    public void binding_followsMode() {
+        assertEquals(SliderSync.SCREEN_ONLY, SliderRoles.primary(UiSnapshot.MODE_SCREEN_ONLY));
+        assertEquals(SliderRoles.NONE, SliderRoles.secondary(UiSnapshot.MODE_SCREEN_ONLY));
+        assertEquals(SliderSync.SYNCED, SliderRoles.primary(UiSnapshot.MODE_SYNCED));
+        assertEquals(SliderRoles.NONE, SliderRoles.secondary(UiSnapshot.MODE_SYNCED));
+        assertEquals(SliderSync.LED, SliderRoles.primary(UiSnapshot.MODE_INDEPENDENT));
+        assertEquals(SliderSync.SCREEN, SliderRoles.secondary(UiSnapshot.MODE_INDEPENDENT));
+    }
+
+    @Test
+    public void values_startAtDefaultAndAreClamped() {
+        SliderRoles roles = new SliderRoles();
+        assertEquals(SliderRoles.MAX, roles.get(SliderSync.LED), 0f);
+
+        assertEquals(SliderRoles.MIN, roles.set(SliderSync.LED, 0f), 0f);
+        assertEquals(SliderRoles.MAX, roles.set(SliderSync.SCREEN, 1.5f), 0f);
+        assertEquals(0.5f, roles.set(SliderSync.SYNCED, 0.5f), 0f);
+        assertEquals(0.5f, roles.get(SliderSync.SYNCED), 0f);
+    }
+
+    @Test
+    public void restore_roundTripsAndIgnoresWrongShape() {
+        SliderRoles roles = new SliderRoles();
+        roles.set(SliderSync.SCREEN_ONLY, 0.3f);
+        SliderRoles restored = new SliderRoles();
+        assertTrue(restored.restore(roles.toArray()));
+        assertEquals(0.3f, restored.get(SliderSync.SCREEN_ONLY), 0f);
+
+        assertFalse(restored.restore(new float[] {0.2f}));
+        assertFalse(restored.restore(null));
+        assertEquals(0.3f, restored.get(SliderSync.SCREEN_ONLY), 0f);
+    }
+}
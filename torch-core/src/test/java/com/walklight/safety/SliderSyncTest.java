@@ -0,0 +1,66 @@
+package com.walklight.safety;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for slider event decisions and pause/exit policy
+ */
+public class SliderSyncTest {
+
+    @Test
+    public void ledSlider_synced_appliesTorchAndMirrorsScreen() {
+        int actions = SliderSync.onSliderChanged(SliderSync.LED, true, true);
+        assertEquals(SliderSync.APPLY_TORCH | SliderSync.APPLY_SCREEN | SliderSync.MIRROR_SCREEN_SLIDER, actions);
+    }
+
+    @Test
+    public void ledSlider_torchOff_onlyScreenFollows() {
+        int actions = SliderSync.onSliderChanged(SliderSync.LED, true, false);
+        assertFalse(SliderSync.has(actions, SliderSync.APPLY_TORCH));
+        assertTrue(SliderSync.has(actions, SliderSync.APPLY_SCREEN));
+    }
+
+    @Test
+    public void ledSlider_independent_onlyTorch() {
+        assertEquals(SliderSync.APPLY_TORCH, SliderSync.onSliderChanged(SliderSync.LED, false, true));
+        assertEquals(0, SliderSync.onSliderChanged(SliderSync.LED, false, false));
+    }
+
+    @Test
+    public void screenSlider_alwaysAppliesScreen_mirrorsOnlyWhenSynced() {
+        assertEquals(SliderSync.APPLY_SCREEN | SliderSync.APPLY_TORCH | SliderSync.MIRROR_LED_SLIDER,
+                SliderSync.onSliderChanged(SliderSync.SCREEN, true, true));
+        assertEquals(SliderSync.APPLY_SCREEN | SliderSync.MIRROR_LED_SLIDER,
+                SliderSync.onSliderChanged(SliderSync.SCREEN, true, false));
+        assertEquals(SliderSync.APPLY_SCREEN, SliderSync.onSliderChanged(SliderSync.SCREEN, false, true));
+    }
+
+    @Test
+    public void singleSliders_applyTheirOwnLevels() {
+        assertEquals(SliderSync.APPLY_TORCH | SliderSync.APPLY_SCREEN,
+                SliderSync.onSliderChanged(SliderSync.SYNCED, true, true));
+        assertEquals(SliderSync.APPLY_SCREEN, SliderSync.onSliderChanged(SliderSync.SCREEN_ONLY, false, false));
+    }
+
+    @Test
+    public void stopPolicy_recreationIsIgnored() {
+        assertEquals(LightPolicy.StopAction.IGNORE, LightPolicy.onStop(true, false, true, false));
+        assertEquals(LightPolicy.StopAction.IGNORE, LightPolicy.onStop(false, true, true, false));
+    }
+
+    @Test
+    public void stopPolicy_respectsKeepOnPreference() {
+        assertEquals(LightPolicy.StopAction.KEEP_ON, LightPolicy.onStop(false, false, true, true));
+        assertEquals(LightPolicy.StopAction.SUSPEND, LightPolicy.onStop(false, false, true, false));
+        assertEquals(LightPolicy.StopAction.NOTHING, LightPolicy.onStop(false, false, false, false));
+    }
+
+    @Test
+    public void exitPolicy_respectsKeepOnPreference() {
+        assertEquals(LightPolicy.ExitAction.KEEP_ON, LightPolicy.onExit(true, true));
+        assertEquals(LightPolicy.ExitAction.TURN_OFF, LightPolicy.onExit(true, false));
+        assertEquals(LightPolicy.ExitAction.NOTHING, LightPolicy.onExit(false, false));
+    }
+}
@@ -0,0 +1,62 @@
+package com.walklight.safety;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for latest-wins coalescing of slider-driven torch strength updates
+ */
+public class StrengthCoalescerTest {
+
+    @Test
+    public void firstOffer_drainsImmediately() {
+        StrengthCoalescer coalescer = new StrengthCoalescer(10);
+        assertEquals(0L, coalescer.offer(5, 1000));
+        assertEquals(5, coalescer.take(1000));
+    }
+
+    @Test
+    public void fastDrag_keepsOnlyLatestValue() {
+        StrengthCoalescer coalescer = new StrengthCoalescer(10); // 100 ms interval
+        coalescer.offer(5, 1000);
+        coalescer.take(1000);
+
+        // Dozens of events inside one interval schedule exactly one drain
+        assertEquals(100L, coalescer.offer(6, 1000));
+        for (int level = 7; level <= 40; level++) {
+            assertEquals(StrengthCoalescer.NO_DRAIN, coalescer.offer(level, 1010 + level));
+        }
+        assertEquals("Final value must not be lost", 40, coalescer.take(1100));
+    }
+
+    @Test
+    public void sameQuantizedLevel_isSkipped() {
+        StrengthCoalescer coalescer = new StrengthCoalescer(10);
+        coalescer.offer(TorchStrength.toLevel(0.50f, 5), 1000);
+        assertEquals(3, coalescer.take(1000));
+
+        // 0.52 still quantizes to level 3 on a 1-5 device
+        coalescer.offer(TorchStrength.toLevel(0.52f, 5), 2000);
+        assertEquals(StrengthCoalescer.NONE, coalescer.take(2000));
+    }
+
+    @Test
+    public void reset_dropsPendingValue() {
+        StrengthCoalescer coalescer = new StrengthCoalescer(10);
+        coalescer.offer(8, 1000);
+        coalescer.reset(StrengthCoalescer.NONE); // torch turned off before the drain ran
+        assertEquals(StrengthCoalescer.NONE, coalescer.take(1000));
+    }
+
+    @Test
+    public void reset_forgetsLastAppliedLevel() {
+        StrengthCoalescer coalescer = new StrengthCoalescer(10);
+        coalescer.offer(8, 1000);
+        coalescer.take(1000);
+        coalescer.reset(StrengthCoalescer.NONE); // plain ON resets the LED to its default level
+
+        coalescer.offer(8, 2000);
+        assertEquals(8, coalescer.take(2000));
+    }
+}
@@ -0,0 +1,63 @@
+package com.walklight.safety;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the torch command planner and state machine
+ */
+public class TorchPlannerTest {
+
+    @Test
+    public void onAtLevel_isSingleStrengthCall_whenSupported() {
+        assertEquals(TorchPlanner.Step.SET_STRENGTH,
+                TorchPlanner.plan(true, false, StrengthCoalescer.NONE, true, 3, true));
+    }
+
+    @Test
+    public void onAtLevel_isPlainOn_withoutStrengthSupport() {
+        assertEquals(TorchPlanner.Step.SET_ON,
+                TorchPlanner.plan(true, false, StrengthCoalescer.NONE, true, 3, false));
+    }
+
+    @Test
+    public void sameState_isNeverReissued() {
+        assertEquals(TorchPlanner.Step.NONE, TorchPlanner.plan(true, true, 3, true, 3, true));
+        assertEquals(TorchPlanner.Step.NONE, TorchPlanner.plan(true, true, StrengthCoalescer.NONE, true, 3, false));
+        assertEquals(TorchPlanner.Step.NONE, TorchPlanner.plan(true, false, StrengthCoalescer.NONE, false, 0, true));
+    }
+
+    @Test
+    public void levelChange_whileOn_isStrengthCall() {
+        assertEquals(TorchPlanner.Step.SET_STRENGTH, TorchPlanner.plan(true, true, 3, true, 5, true));
+    }
+
+    @Test
+    public void unknownHardware_alwaysIssuesCommand() {
+        // The torch may still be on from a previous process - OFF must reach the HAL
+        assertEquals(TorchPlanner.Step.SET_OFF,
+                TorchPlanner.plan(false, false, StrengthCoalescer.NONE, false, 0, true));
+        assertEquals(TorchPlanner.Step.SET_STRENGTH,
+                TorchPlanner.plan(false, false, StrengthCoalescer.NONE, true, 2, true));
+    }
+
+    @Test
+    public void suspendAndRestore_keepsLevel() {
+        TorchStateMachine machine = new TorchStateMachine();
+        assertFalse("Nothing to suspend while OFF", machine.suspend());
+
+        machine.markOn(4);
+        assertTrue(machine.suspend());
+        assertEquals(TorchState.SUSPENDED, machine.getState());
+        assertTrue(machine.needsRestore());
+
+        assertTrue(machine.beginRestore());
+        assertEquals(TorchState.RESTORING, machine.getState());
+        assertFalse("Restore is issued only once", machine.beginRestore());
+
+        machine.markOn(machine.getLevel());
+        assertTrue(machine.isOn());
+        assertEquals(4, machine.getLevel());
+    }
+}
@@ -0,0 +1,45 @@
+package com.walklight.safety;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the persisted main-screen UI snapshot
+ */
+public class UiSnapshotTest {
+
+    @Test
+    public void encodeParse_roundTrips() {
+        UiSnapshot snapshot = new UiSnapshot(UiSnapshot.MODE_SYNCED, true, 0.4f, 0.6f, 0.35f, 0.8f, 0.35f);
+        UiSnapshot parsed = UiSnapshot.parse(snapshot.encode());
+
+        assertNotNull(parsed);
+        assertEquals(UiSnapshot.MODE_SYNCED, parsed.mode);
+        assertTrue(parsed.syncEnabled);
+        assertEquals(0.4f, parsed.ledSlider, 0f);
+        assertEquals(0.6f, parsed.screenSlider, 0f);
+        assertEquals(0.35f, parsed.syncedSlider, 0f);
+        assertEquals(0.8f, parsed.screenOnlySlider, 0f);
+        assertEquals(0.35f, parsed.screenLevel, 0f);
+    }
+
+    @Test
+    public void modeFor_followsTorchAndSync() {
+        assertEquals(UiSnapshot.MODE_SCREEN_ONLY, UiSnapshot.modeFor(false, true));
+        assertEquals(UiSnapshot.MODE_INDEPENDENT, UiSnapshot.modeFor(true, false));
+        assertEquals(UiSnapshot.MODE_SYNCED, UiSnapshot.modeFor(true, true));
+        assertFalse(new UiSnapshot(UiSnapshot.MODE_SCREEN_ONLY, true, 1f, 1f, 1f, 1f, 1f).torchShown());
+    }
+
+    @Test
+    public void parse_rejectsMissingOrCorrupt() {
+        assertNull(UiSnapshot.parse(null));
+        assertNull(UiSnapshot.parse(""));
+        assertNull(UiSnapshot.parse("2;1;0;1.0;1.0;1.0;1.0;1.0")); // Other version
+        assertNull(UiSnapshot.parse("1;7;0;1.0;1.0;1.0;1.0;1.0")); // Unknown mode
+        assertNull(UiSnapshot.parse("1;1;0;1.0;x;1.0;1.0;1.0"));
+        assertNull(UiSnapshot.parse("1;1;0;1.0;NaN;1.0;1.0;1.0"));
+        assertNull(UiSnapshot.parse("1;1;0;1.0;1.0;1.0;1.0"));
+    }
+}